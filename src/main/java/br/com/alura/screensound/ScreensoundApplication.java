@@ -1,12 +1,35 @@
 package br.com.alura.screensound;
 
+import br.com.alura.screensound.principal.ModoLote;
 import br.com.alura.screensound.principal.Principal;
 import br.com.alura.screensound.repository.ArtistaRepository;
 import br.com.alura.screensound.repository.MusicaRepository;
+import br.com.alura.screensound.service.AutocompletarService;
+import br.com.alura.screensound.service.BuscaTextualService;
+import br.com.alura.screensound.service.CadastroService;
+import br.com.alura.screensound.service.CatalogoEmMemoria;
+import br.com.alura.screensound.service.DiscografiaService;
+import br.com.alura.screensound.service.ExclusaoCatalogoService;
+import br.com.alura.screensound.service.ExportadorCatalogo;
+import br.com.alura.screensound.service.FilaCadastros;
+import br.com.alura.screensound.service.NavegacaoCatalogoService;
+import br.com.alura.screensound.service.PlaylistService;
+import br.com.alura.screensound.service.ReproducoesService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Classe principal da aplicação Screen Sound Músicas.
@@ -47,6 +70,113 @@ public class ScreensoundApplication implements CommandLineRunner {
 	@Autowired
 	private MusicaRepository musicaRepository;
 
+	/**
+	 * Gerenciador de transações do Spring (JPA).
+	 * Usado pelo modo lote para agrupar vários comandos em uma mesma transação.
+	 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	// Serviços usados APENAS pelo modo lote: injetados como ObjectProvider.
+	//
+	// Por que ObjectProvider e não o próprio serviço?
+	// - Com @Autowired direto, o Spring precisa criar o serviço (e tudo de que ele depende)
+	//   para injetá-lo aqui, mesmo quando só o menu vai ser usado
+	// - Com o perfil startup (inicialização preguiçosa), o ObjectProvider só cria o serviço
+	//   quando getObject() é chamado, isto é, quando um comando do modo lote que o usa é executado
+
+	/**
+	 * Serviço de exportação do catálogo (comando "export" do modo lote).
+	 */
+	@Autowired
+	private ObjectProvider<ExportadorCatalogo> exportadorCatalogo;
+
+	/**
+	 * Cadastros concorrentes (inserção direta de músicas e nova tentativa em conflitos de versão).
+	 */
+	@Autowired
+	private ObjectProvider<CadastroService> cadastroService;
+
+	/**
+	 * Busca textual por relevância (índice Lucene do Hibernate Search).
+	 */
+	@Autowired
+	private BuscaTextualService buscaTextualService;
+
+	/**
+	 * Autocompletar de nomes de artistas e títulos (árvore de prefixos em memória).
+	 */
+	@Autowired
+	private AutocompletarService autocompletarService;
+
+	/**
+	 * Catálogo em memória (usado pelo menu quando screensound.catalogo-memoria.enabled=true).
+	 */
+	@Autowired
+	private CatalogoEmMemoria catalogoEmMemoria;
+
+	/**
+	 * Registro de reproduções e ranking das mais tocadas (screensound.reproducoes.enabled=true).
+	 */
+	@Autowired
+	private ReproducoesService reproducoesService;
+
+	/**
+	 * Playlists com reordenação por chaves de ordenação (comandos "playlist-..." do modo lote).
+	 */
+	@Autowired
+	private ObjectProvider<PlaylistService> playlistService;
+
+	/**
+	 * Álbuns e página do artista (comandos "add-album" e "artist" do modo lote).
+	 */
+	@Autowired
+	private ObjectProvider<DiscografiaService> discografiaService;
+
+	/**
+	 * Cadastros do menu com gravação adiada (screensound.fila-cadastros.enabled=true).
+	 */
+	@Autowired
+	private FilaCadastros filaCadastros;
+
+	/**
+	 * Navegação pelo catálogo com filtros combinados (comandos "browse" e "enrich" do modo lote).
+	 */
+	@Autowired
+	private ObjectProvider<NavegacaoCatalogoService> navegacaoCatalogoService;
+
+	/**
+	 * Exclusão em massa de artistas e músicas (comandos "delete-..." do modo lote).
+	 */
+	@Autowired
+	private ObjectProvider<ExclusaoCatalogoService> exclusaoCatalogoService;
+
+	/**
+	 * Quando true, exibe quanto tempo a JVM levou até chegar ao menu.
+	 * Ligado pelo perfil "startup" (application-startup.properties).
+	 */
+	@Value("${screensound.startup.medir:false}")
+	private boolean medirInicializacao;
+
+	/**
+	 * Quando true, encerra a aplicação logo após a inicialização, sem abrir o menu.
+	 * Usado pelo build para gerar o arquivo CDS e para o benchmark de inicialização.
+	 */
+	@Value("${screensound.startup.encerrar-apos-iniciar:false}")
+	private boolean encerrarAposIniciar;
+
+	/**
+	 * Benchmark de inicialização: a execução SEM otimizações grava o tempo neste arquivo...
+	 */
+	@Value("${screensound.startup.gravar-tempo-em:}")
+	private String arquivoTempo;
+
+	/**
+	 * ...e a execução otimizada (CDS + AOT + perfil startup) lê o arquivo e exibe a diferença.
+	 */
+	@Value("${screensound.startup.comparar-com:}")
+	private String arquivoTempoBase;
+
 	/**
 	 * Método main - Ponto de entrada da aplicação Java.
 	 * 
@@ -69,23 +199,66 @@ public class ScreensoundApplication implements CommandLineRunner {
 	 * 1. Spring inicializa (lê application.properties, conecta no banco, etc.)
 	 * 2. Spring injeta os repositories (artistaRepository e musicaRepository)
 	 * 3. Este método run() é executado
-	 * 4. Cria uma instância de Principal passando os repositories
-	 * 5. Chama exibeMenu() que mostra o menu interativo para o usuário
+	 * 4. Se houver comandos na linha de comando, executa o ModoLote e encerra
+	 * 5. Senão, cria uma instância de Principal passando os repositories
+	 * 6. Chama exibeMenu() que mostra o menu interativo para o usuário
 	 * 
 	 * Por que passar os repositories para Principal?
 	 * - A classe Principal precisa acessar o banco de dados
 	 * - Passamos os repositories já configurados pelo Spring
 	 * - Evita criar conexões duplicadas com o banco
 	 * 
-	 * @param args - argumentos da linha de comando (não usado nesta aplicação)
+	 * @param args - argumentos da linha de comando (comandos do modo lote, opcional)
 	 * @throws Exception - qualquer exceção que possa ocorrer
 	 */
 	@Override
 	public void run(String... args) throws Exception {
+		// Tempo desde o início da JVM até este ponto (contexto pronto, antes do menu)
+		if (medirInicializacao || encerrarAposIniciar) {
+			long tempo = ManagementFactory.getRuntimeMXBean().getUptime();
+			System.out.println("Tempo até o menu: " + tempo + " ms" + compararComBase(tempo));
+			if (!arquivoTempo.isBlank()) {
+				Files.writeString(Path.of(arquivoTempo), Long.toString(tempo));
+			}
+		}
+		if (encerrarAposIniciar) {
+			return;
+		}
+
+		// Argumentos iniciados com "--" são propriedades do Spring (ex: --spring.profiles.active=startup)
+		List<String> comandos = Arrays.stream(args)
+				.filter(arg -> !arg.startsWith("--"))
+				.toList();
+
+		// Com comandos na linha de comando, executa o modo lote e encerra sem abrir o menu
+		if (!comandos.isEmpty()) {
+			// Os providers vão direto para o ModoLote: cada serviço só é criado pelo comando que o usa
+			ModoLote modoLote = new ModoLote(artistaRepository, musicaRepository,
+					new TransactionTemplate(transactionManager), exportadorCatalogo,
+					cadastroService, buscaTextualService, autocompletarService, reproducoesService,
+					playlistService, discografiaService, navegacaoCatalogoService, exclusaoCatalogoService);
+			modoLote.executar(comandos);
+			return;
+		}
+
 		// Cria instância de Principal com os repositories injetados
-		Principal principal = new Principal(artistaRepository, musicaRepository);
+		Principal principal = new Principal(artistaRepository, musicaRepository, catalogoEmMemoria,
+				buscaTextualService, autocompletarService, reproducoesService, filaCadastros);
 		
 		// Exibe o menu interativo para o usuário
 		principal.exibeMenu();
 	}
+
+	/**
+	 * Texto com a diferença para o tempo gravado pela execução sem otimizações (vazio se não houver).
+	 */
+	private String compararComBase(long tempo) throws IOException {
+		if (arquivoTempoBase.isBlank() || !Files.exists(Path.of(arquivoTempoBase))) {
+			return "";
+		}
+		long base = Long.parseLong(Files.readString(Path.of(arquivoTempoBase)).trim());
+		long diferenca = base - tempo;
+		return " (sem otimizações: " + base + " ms; " + Math.abs(diferenca) + " ms / "
+				+ Math.round(100.0 * Math.abs(diferenca) / base) + "% " + (diferenca >= 0 ? "mais rápido)" : "mais lento)");
+	}
 }
@@ -0,0 +1,109 @@
+package br.com.alura.screensound.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entidade JPA que representa um Álbum: o nível entre o Artista e suas Músicas.
+ * 
+ * Relacionamentos:
+ * - Um álbum pertence a UM artista (ManyToOne)
+ * - Um álbum tem VÁRIAS faixas (músicas) (OneToMany)
+ * - Músicas sem álbum (singles) continuam ligadas apenas ao artista
+ * 
+ * Exemplo no banco:
+ * +----+-------------------+------+------------+
+ * | id | titulo            | ano  | artista_id |
+ * +----+-------------------+------+------------+
+ * | 1  | Like a Prayer     | 1989 | 1          |
+ * | 2  | True Blue         | 1986 | 1          |
+ * +----+-------------------+------+------------+
+ */
+@Entity
+@Table(name = "albuns", uniqueConstraints = @UniqueConstraint(columnNames = {"artista_id", "titulo"}))
+public class Album {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String titulo;
+
+    /**
+     * Ano de lançamento (opcional).
+     */
+    private Integer ano;
+
+    /**
+     * Artista dono do álbum.
+     * 
+     * FetchType.LAZY - o artista só é buscado se for acessado
+     *   (na página do artista ele já está carregado, então não gera consulta extra)
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "artista_id")
+    private Artista artista;
+
+    /**
+     * Faixas do álbum.
+     * 
+     * @Fetch(FetchMode.SUBSELECT) - ao acessar as faixas de UM álbum, o Hibernate busca as faixas
+     *   de TODOS os álbuns carregados pela mesma consulta, de uma vez só:
+     *   SELECT ... FROM musicas WHERE album_id IN (SELECT id FROM albuns WHERE artista_id = ?)
+     *   Sem isso seria uma consulta por álbum (problema N+1).
+     */
+    @OneToMany(mappedBy = "album")
+    @Fetch(FetchMode.SUBSELECT)
+    @OrderBy("id")
+    private List<Musica> faixas = new ArrayList<>();
+
+    /**
+     * Construtor padrão vazio (obrigatório para o JPA).
+     */
+    public Album() {}
+
+    public Album(String titulo, Integer ano, Artista artista) {
+        this.titulo = titulo;
+        this.ano = ano;
+        this.artista = artista;
+    }
+
+    // ========== GETTERS E SETTERS ==========
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitulo() {
+        return titulo;
+    }
+
+    public void setTitulo(String titulo) {
+        this.titulo = titulo;
+    }
+
+    public Integer getAno() {
+        return ano;
+    }
+
+    public void setAno(Integer ano) {
+        this.ano = ano;
+    }
+
+    public Artista getArtista() {
+        return artista;
+    }
+
+    public List<Musica> getFaixas() {
+        return faixas;
+    }
+
+    @Override
+    public String toString() {
+        return "Álbum: " + titulo + (ano != null ? " (" + ano + ")" : "");
+    }
+}
@@ -1,6 +1,13 @@
 package br.com.alura.screensound.model;
 
+import br.com.alura.screensound.service.CatalogoEntityListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.search.engine.backend.types.Projectable;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.KeywordField;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,6 +33,8 @@ import java.util.List;
  */
 @Entity  // Marca esta classe como uma entidade JPA
 @Table(name = "artistas")  // Define o nome da tabela no banco
+@EntityListeners(CatalogoEntityListener.class)  // Avisa o restante da aplicação sobre gravações (ver CatalogoAlterado)
+@Indexed  // Também é gravado no índice de busca textual (Hibernate Search / Lucene)
 public class Artista {
     
     /**
@@ -46,6 +55,7 @@ public class Artista {
      * Exemplo: Não pode cadastrar "Madonna" duas vezes
      */
     @Column(unique = true)
+    @FullTextField(projectable = Projectable.YES)  // Indexado para busca textual (por palavras, com relevância)
     private String nome;
 
     /**
@@ -60,8 +70,49 @@ public class Artista {
      * - Não quebra se adicionar novos tipos no meio do enum
      */
     @Enumerated(EnumType.STRING)
+    @KeywordField(projectable = Projectable.YES)  // Indexado como valor exato (filtro por tipo)
     private TipoArtista tipo;
 
+    /**
+     * Versão do registro (controle de concorrência otimista).
+     * 
+     * @Version - O Hibernate incrementa este número a cada UPDATE do artista
+     *   - O UPDATE inclui "WHERE versao = ?" com a versão lida
+     *   - Se outra transação alterou o artista antes, nenhuma linha é atualizada
+     *     e o Spring lança ObjectOptimisticLockingFailureException (em vez de perder a alteração)
+     * 
+     * columnDefinition com "default 0" - artistas já existentes no banco recebem versão 0
+     * 
+     * Importante: cadastrar uma música NÃO altera o artista (a música é inserida direto
+     * na tabela musicas), então músicas simultâneas do mesmo artista não entram em conflito.
+     */
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long versao;
+
+    /**
+     * Gênero e país do artista, obtidos do TheAudioDB (comando "enrich" do modo lote).
+     * Nulos enquanto o artista não foi consultado ou se a API não os informar.
+     * 
+     * Os filtros da navegação comparam lower(genero) e lower(pais): os índices são de
+     * expressão e por isso criados com SQL (ver NavegacaoCatalogoService), não com @Index.
+     */
+    private String genero;
+    private String pais;
+
+    /**
+     * Endereços da miniatura e do logo do artista no TheAudioDB.
+     * As imagens são servidas a partir do cache local (ver CacheArtes e ServidorArtes).
+     */
+    private String urlMiniatura;
+    private String urlLogo;
+
+    /**
+     * Quando o artista foi consultado no TheAudioDB (null = ainda não consultado).
+     * Evita consultar de novo artistas que a API não conhece.
+     */
+    private Instant enriquecidoEm;
+
     /**
      * Lista de músicas do artista.
      * 
@@ -77,14 +128,31 @@ public class Artista {
      *   - Ao deletar o artista, deleta as músicas também
      *   - CUIDADO: Pode deletar dados sem querer!
      * 
-     * fetch = FetchType.EAGER - Tipo de carregamento
-     *   - EAGER: Carrega as músicas IMEDIATAMENTE ao buscar o artista
+     * fetch = FetchType.LAZY (padrão do @OneToMany) - Tipo de carregamento
+     *   - EAGER: Carregaria TODAS as músicas IMEDIATAMENTE ao buscar o artista
      *   - LAZY: Carrega as músicas APENAS quando acessadas (economiza memória)
-     *   - Usamos EAGER aqui porque sempre precisamos das músicas
+     *   - Usamos LAZY porque a discografia pode ser enorme e quase nunca é usada inteira
+     *     (a página do artista usa os álbuns e contagens; ver DiscografiaService)
+     * 
+     * @BatchSize(size = 25) - se vários artistas estão carregados e as músicas de um deles
+     *   são acessadas, o Hibernate já busca as de até 25 artistas na mesma consulta
+     *   (WHERE artista_id IN (...)), em vez de uma consulta por artista
      */
-    @OneToMany(mappedBy = "artista", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "artista", cascade = CascadeType.ALL)
+    @BatchSize(size = 25)
     private List<Musica> musicas = new ArrayList<>();
 
+    /**
+     * Álbuns do artista, do mais antigo para o mais recente.
+     * 
+     * LAZY + @BatchSize: listar vários artistas com seus álbuns custa uma consulta
+     * de álbuns a cada 25 artistas, e não uma por artista.
+     */
+    @OneToMany(mappedBy = "artista")
+    @BatchSize(size = 25)
+    @OrderBy("ano, titulo")
+    private List<Album> albuns = new ArrayList<>();
+
     /**
      * Construtor padrão vazio.
      * Obrigatório para o JPA criar objetos via reflection.
@@ -130,6 +198,41 @@ public class Artista {
         this.tipo = tipo;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
+    public String getGenero() {
+        return genero;
+    }
+
+    public String getPais() {
+        return pais;
+    }
+
+    public Instant getEnriquecidoEm() {
+        return enriquecidoEm;
+    }
+
+    public String getUrlMiniatura() {
+        return urlMiniatura;
+    }
+
+    public String getUrlLogo() {
+        return urlLogo;
+    }
+
+    /**
+     * Grava os dados obtidos do TheAudioDB e marca o artista como consultado.
+     */
+    public void enriquecer(String genero, String pais, String urlMiniatura, String urlLogo) {
+        this.genero = genero;
+        this.pais = pais;
+        this.urlMiniatura = urlMiniatura;
+        this.urlLogo = urlLogo;
+        this.enriquecidoEm = Instant.now();
+    }
+
     public List<Musica> getMusicas() {
         return musicas;
     }
@@ -138,6 +241,10 @@ public class Artista {
         this.musicas = musicas;
     }
 
+    public List<Album> getAlbuns() {
+        return albuns;
+    }
+
     /**
      * Método toString personalizado.
      * Define como o objeto será exibido quando impresso.
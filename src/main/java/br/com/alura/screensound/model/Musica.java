@@ -1,6 +1,12 @@
 package br.com.alura.screensound.model;
 
+import br.com.alura.screensound.service.CatalogoEntityListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.PartitionKey;
+import org.hibernate.search.engine.backend.types.Projectable;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.IndexedEmbedded;
 
 /**
  * Entidade JPA que representa uma Música no banco de dados.
@@ -13,6 +19,7 @@ import jakarta.persistence.*;
  * Relacionamento:
  * - Uma música pertence a UM artista (ManyToOne)
  * - Várias músicas podem pertencer ao mesmo artista
+ * - Uma música pode fazer parte de UM álbum (opcional, ManyToOne)
  * 
  * Exemplo no banco:
  * +----+------------------+-------------+
@@ -23,7 +30,11 @@ import jakarta.persistence.*;
  * +----+------------------+-------------+
  */
 @Entity  // Marca esta classe como uma entidade JPA
-@Table(name = "musicas")  // Define o nome da tabela no banco de dados
+@Table(name = "musicas",  // Define o nome da tabela no banco de dados
+        indexes = {@Index(name = "musicas_album", columnList = "album_id"),  // Índice para buscar as faixas de um álbum
+                @Index(name = "musicas_artista", columnList = "artista_id")})  // Índice para buscar as músicas de um artista
+@EntityListeners(CatalogoEntityListener.class)  // Avisa o restante da aplicação sobre gravações (ver CatalogoAlterado)
+@Indexed  // Também é gravada no índice de busca textual (Hibernate Search / Lucene)
 public class Musica {
     
     /**
@@ -40,7 +51,10 @@ public class Musica {
     /**
      * Título da música.
      * Será uma coluna VARCHAR no banco de dados.
+     * 
+     * @FullTextField - também indexado para busca textual (por palavras, com relevância)
      */
+    @FullTextField(projectable = Projectable.YES)
     private String titulo;
 
     /**
@@ -53,11 +67,38 @@ public class Musica {
      * @JoinColumn - Define a coluna de junção (Foreign Key)
      *   - name = "artista_id" - Nome da coluna FK no banco
      *   - Esta coluna guarda o ID do artista
+     * 
+     * @IndexedEmbedded - copia nome e tipo do artista para o documento da música no índice,
+     *   permitindo buscar "artista + título" de uma vez. Se o artista mudar de nome,
+     *   o Hibernate Search reindexa as músicas dele automaticamente.
      */
+    @IndexedEmbedded(includePaths = {"nome", "tipo"})
     @ManyToOne
     @JoinColumn(name = "artista_id")
     private Artista artista;
 
+    /**
+     * Álbum da música (opcional: músicas sem álbum são singles).
+     * 
+     * FetchType.LAZY - o álbum só é buscado se for acessado
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "album_id")
+    private Album album;
+
+    /**
+     * Id do artista, somente leitura (a coluna é gravada pelo campo artista).
+     * 
+     * @PartitionKey - o Hibernate inclui "AND artista_id = ?" no UPDATE e no DELETE da música.
+     *   Com a tabela particionada por artista_id (ver db/particionar-musicas.sql), o PostgreSQL
+     *   vai direto à partição certa, em vez de procurar o id em todas as partições.
+     * 
+     * Preenchido antes do INSERT (@PrePersist) e ao carregar a música do banco.
+     */
+    @PartitionKey
+    @Column(name = "artista_id", insertable = false, updatable = false)
+    private Long artistaId;
+
     /**
      * Construtor padrão vazio.
      * Obrigatório para o JPA criar objetos via reflection.
@@ -99,10 +140,36 @@ public class Musica {
         return artista;
     }
 
+    /**
+     * Define o artista de uma música nova.
+     * 
+     * Uma música já gravada não muda de artista: o artista faz parte da chave da partição
+     * (cadastre a música no outro artista e remova esta).
+     */
     public void setArtista(Artista artista) {
+        if (artistaId != null && (artista == null || !artistaId.equals(artista.getId()))) {
+            throw new IllegalStateException("Uma música gravada não pode mudar de artista");
+        }
         this.artista = artista;
     }
 
+    public Album getAlbum() {
+        return album;
+    }
+
+    public void setAlbum(Album album) {
+        this.album = album;
+    }
+
+    /**
+     * Copia o id do artista para artistaId antes do INSERT (usado como @PartitionKey).
+     * O artista já tem id aqui: ele é gravado antes das músicas.
+     */
+    @PrePersist
+    private void copiarArtistaId() {
+        artistaId = artista == null ? null : artista.getId();
+    }
+
     /**
      * Método toString personalizado.
      * Define como o objeto será exibido quando impresso.
@@ -112,6 +179,13 @@ public class Musica {
      */
     @Override
     public String toString() {
-        return "Música: " + titulo + " - Artista: " + artista.getNome();
+        return descrever(titulo, artista.getNome());
+    }
+
+    /**
+     * Mesmo texto do toString(), para quem leu só o título e o nome do artista (sem a entidade).
+     */
+    public static String descrever(String titulo, String nomeArtista) {
+        return "Música: " + titulo + " - Artista: " + nomeArtista;
     }
 }
@@ -0,0 +1,62 @@
+package br.com.alura.screensound.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Entidade JPA que representa uma Playlist (lista de músicas montada pelo usuário).
+ * 
+ * Relacionamento:
+ * - Uma playlist tem VÁRIOS itens (PlaylistItem), cada um apontando para uma música
+ * - A playlist NÃO tem a lista de itens como atributo: playlists podem ter milhares de músicas,
+ *   então os itens são sempre lidos em páginas pelo PlaylistItemRepository
+ * 
+ * Exemplo no banco:
+ * +----+------------------+
+ * | id | nome             |
+ * +----+------------------+
+ * | 1  | Anos 80          |
+ * | 2  | Para correr      |
+ * +----+------------------+
+ */
+@Entity
+@Table(name = "playlists")
+public class Playlist {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Nome da playlist (único).
+     */
+    @Column(unique = true, nullable = false)
+    private String nome;
+
+    /**
+     * Construtor padrão vazio (obrigatório para o JPA).
+     */
+    public Playlist() {}
+
+    public Playlist(String nome) {
+        this.nome = nome;
+    }
+
+    // ========== GETTERS E SETTERS ==========
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    @Override
+    public String toString() {
+        return "Playlist: " + nome;
+    }
+}
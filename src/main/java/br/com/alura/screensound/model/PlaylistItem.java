@@ -0,0 +1,89 @@
+package br.com.alura.screensound.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Entidade JPA que representa uma música dentro de uma playlist.
+ * 
+ * A ordem dos itens é dada pela coluna posicao, uma CHAVE DE ORDENAÇÃO em texto
+ * (ex: "bi0", "bi0i", "bi1") e não um número sequencial (1, 2, 3...):
+ * - Para colocar um item entre outros dois, basta gerar uma chave entre as chaves deles
+ * - Inserir ou mover um item altera UMA linha, sem renumerar o resto da playlist
+ * 
+ * Exemplo no banco (a ordem é a de posicao, não a de id):
+ * +----+-------------+-----------+----------+
+ * | id | playlist_id | musica_id | posicao  |
+ * +----+-------------+-----------+----------+
+ * | 1  | 1           | 10        | bi0      |
+ * | 3  | 1           | 12        | bi0i     |  <- inserida depois, entre as outras duas
+ * | 2  | 1           | 11        | bi1      |
+ * +----+-------------+-----------+----------+
+ */
+@Entity
+@Table(name = "playlist_itens",
+        indexes = {@Index(name = "playlist_itens_posicao", columnList = "playlist_id, posicao"),
+                @Index(name = "playlist_itens_musica", columnList = "musica_id")})  // Exclusão em massa de músicas
+public class PlaylistItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Playlist à qual o item pertence.
+     * 
+     * FetchType.LAZY - a playlist só é carregada se for acessada (normalmente basta o id)
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "playlist_id")
+    private Playlist playlist;
+
+    /**
+     * Música do item (a mesma música pode aparecer mais de uma vez na playlist).
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "musica_id")
+    private Musica musica;
+
+    /**
+     * Chave de ordenação do item dentro da playlist.
+     * 
+     * COLLATE "C" - compara byte a byte (ordem ASCII), igual ao String.compareTo do Java.
+     *   Com a collation padrão do banco (ex: pt_BR), "a" e "B" poderiam ficar em outra ordem.
+     */
+    @Column(nullable = false, columnDefinition = "varchar(255) COLLATE \"C\"")
+    private String posicao;
+
+    /**
+     * Construtor padrão vazio (obrigatório para o JPA).
+     */
+    public PlaylistItem() {}
+
+    public PlaylistItem(Playlist playlist, Musica musica, String posicao) {
+        this.playlist = playlist;
+        this.musica = musica;
+        this.posicao = posicao;
+    }
+
+    // ========== GETTERS E SETTERS ==========
+
+    public Long getId() {
+        return id;
+    }
+
+    public Playlist getPlaylist() {
+        return playlist;
+    }
+
+    public Musica getMusica() {
+        return musica;
+    }
+
+    public String getPosicao() {
+        return posicao;
+    }
+
+    public void setPosicao(String posicao) {
+        this.posicao = posicao;
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.alura.screensound.principal;
+
+import br.com.alura.screensound.service.AutocompletarService;
+import br.com.alura.screensound.service.BuscaTextualService;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * Comandos do modo lote de busca textual e autocompletar: reindex, find e suggest.
+ */
+final class ComandosBusca implements ComandosLote {
+
+    private final PrintWriter saida;
+    private final BuscaTextualService buscaTextual;
+    private final AutocompletarService autocompletar;
+
+    ComandosBusca(ContextoLote contexto, BuscaTextualService buscaTextual, AutocompletarService autocompletar) {
+        this.saida = contexto.saida();
+        this.buscaTextual = buscaTextual;
+        this.autocompletar = autocompletar;
+    }
+
+    @Override
+    public boolean executar(String comando, List<String> parametros) {
+        switch (comando) {
+            case "reindex" -> reindexar(parametros.isEmpty() ? 4 : Integer.parseInt(parametros.get(0)));
+            case "find" -> buscarTexto(String.join(" ", parametros));
+            case "suggest" -> sugerir(String.join(" ", parametros));
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reconstrói o índice de busca textual a partir do banco.
+     */
+    private void reindexar(int threads) {
+        long inicio = System.nanoTime();
+        try {
+            buscaTextual.reindexar(threads);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        saida.println("Índice reconstruído em " + (System.nanoTime() - inicio) / 1_000_000 + " ms.");
+    }
+
+    /**
+     * Busca textual (artistas e músicas) ordenada por relevância, com o tempo da consulta.
+     */
+    private void buscarTexto(String texto) {
+        long inicio = System.nanoTime();
+        List<BuscaTextualService.ArtistaEncontrado> artistas = buscaTextual.buscarArtistas(texto, 5);
+        List<BuscaTextualService.MusicaEncontrada> musicas = buscaTextual.buscarMusicas(texto, 20);
+        long microssegundos = (System.nanoTime() - inicio) / 1_000;
+
+        artistas.forEach(saida::println);
+        musicas.forEach(saida::println);
+        saida.println((artistas.size() + musicas.size()) + " resultados em " + microssegundos + " µs.");
+    }
+
+    /**
+     * Sugestões de artistas e títulos que começam com o prefixo, com o tempo da consulta.
+     */
+    private void sugerir(String prefixo) {
+        if (!autocompletar.isAtivo()) {
+            throw new IllegalArgumentException("Autocompletar desativado (screensound.autocompletar.enabled=false)");
+        }
+        // Primeira chamada aplica as alterações pendentes; a medição é da consulta seguinte
+        autocompletar.sugerirArtistas(prefixo, 10);
+        long inicio = System.nanoTime();
+        List<String> artistas = autocompletar.sugerirArtistas(prefixo, 10);
+        List<String> musicas = autocompletar.sugerirMusicas(prefixo, 10);
+        long nanossegundos = System.nanoTime() - inicio;
+
+        saida.println("Artistas: " + String.join(", ", artistas));
+        saida.println("Músicas: " + String.join(", ", musicas));
+        saida.println("Consulta em " + nanossegundos / 1_000 + " µs.");
+    }
+}
@@ -0,0 +1,292 @@
+package br.com.alura.screensound.principal;
+
+import br.com.alura.screensound.model.Album;
+import br.com.alura.screensound.model.Artista;
+import br.com.alura.screensound.model.Musica;
+import br.com.alura.screensound.model.TipoArtista;
+import br.com.alura.screensound.repository.MusicaRepository;
+import br.com.alura.screensound.service.CadastroService;
+import br.com.alura.screensound.service.DiscografiaService;
+import br.com.alura.screensound.service.ExclusaoCatalogoService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static br.com.alura.screensound.principal.ContextoLote.exigir;
+
+/**
+ * Comandos do modo lote que gravam ou excluem artistas, álbuns e músicas:
+ * import, add-songs, add-album, set-type, bench-writers, delete-artist, delete-type e delete-songs.
+ */
+final class ComandosCadastro implements ComandosLote {
+
+    // Quantidade de linhas gravadas por transação na importação
+    private static final int TAMANHO_LOTE = 500;
+
+    private final ContextoLote contexto;
+    private final PrintWriter saida;
+    private final MusicaRepository musicaRepository;
+    private final TransactionTemplate transacao;
+    private final ObjectProvider<CadastroService> cadastro;
+    private final ObjectProvider<DiscografiaService> discografia;
+    private final ObjectProvider<ExclusaoCatalogoService> exclusao;
+
+    ComandosCadastro(ContextoLote contexto, MusicaRepository musicaRepository, TransactionTemplate transacao,
+                     ObjectProvider<CadastroService> cadastro, ObjectProvider<DiscografiaService> discografia,
+                     ObjectProvider<ExclusaoCatalogoService> exclusao) {
+        this.contexto = contexto;
+        this.saida = contexto.saida();
+        this.musicaRepository = musicaRepository;
+        this.transacao = transacao;
+        this.cadastro = cadastro;
+        this.discografia = discografia;
+        this.exclusao = exclusao;
+    }
+
+    @Override
+    public boolean executar(String comando, List<String> parametros) throws IOException {
+        switch (comando) {
+            case "import" -> importar(Path.of(exigir(parametros, 0, "arquivo")));
+            case "add-songs" -> adicionarMusicas(exigir(parametros, 0, "artista"),
+                    parametros.subList(1, parametros.size()));
+            case "add-album" -> adicionarAlbum(exigir(parametros, 0, "artista"), exigir(parametros, 1, "album"),
+                    exigir(parametros, 2, "ano"), parametros.subList(3, parametros.size()));
+            case "set-type" -> alterarTipo(exigir(parametros, 0, "artista"), exigir(parametros, 1, "tipo"));
+            case "bench-writers" -> medirCadastrosConcorrentes(exigir(parametros, 0, "artista"),
+                    parametros.size() > 1 ? Integer.parseInt(parametros.get(1)) : 8,
+                    parametros.size() > 2 ? Integer.parseInt(parametros.get(2)) : 200);
+            case "delete-artist" -> excluirArtistas(parametros);
+            case "delete-type" -> excluirTipo(exigir(parametros, 0, "tipo"));
+            case "delete-songs" -> excluirMusicas(exigir(parametros, 0, "artista"),
+                    parametros.subList(1, parametros.size()));
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Importa um arquivo CSV no formato: artista;tipo;musica[;album[;ano]]
+     *
+     * - A coluna musica é opcional (linha só com artista e tipo cadastra apenas o artista)
+     * - As colunas album e ano são opcionais (música sem álbum = single)
+     * - Linhas vazias e iniciadas com # são ignoradas
+     * - As linhas são gravadas em transações de TAMANHO_LOTE linhas
+     * - Se um lote falhar, a importação para e o erro informa as linhas do lote
+     *   (os lotes anteriores já estão gravados)
+     */
+    private void importar(Path arquivo) throws IOException {
+        int artistasAntes = contexto.quantidadeArtistasConhecidos();
+        int musicas = 0;
+        List<String[]> lote = new ArrayList<>(TAMANHO_LOTE);
+        int numeroLinha = 0;
+        int primeiraDoLote = 0;
+
+        try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                numeroLinha++;
+                if (linha.isBlank() || linha.startsWith("#")) {
+                    continue;
+                }
+                if (lote.isEmpty()) {
+                    primeiraDoLote = numeroLinha;
+                }
+                lote.add(linha.split(";", -1));
+                if (lote.size() == TAMANHO_LOTE) {
+                    musicas += gravarLote(lote, arquivo, primeiraDoLote, numeroLinha, musicas);
+                    lote.clear();
+                }
+            }
+        }
+        if (!lote.isEmpty()) {
+            musicas += gravarLote(lote, arquivo, primeiraDoLote, numeroLinha, musicas);
+        }
+
+        saida.println("Importação concluída: " + (contexto.quantidadeArtistasConhecidos() - artistasAntes)
+                + " artistas carregados, " + musicas + " músicas cadastradas.");
+    }
+
+    /**
+     * Grava um lote de linhas em UMA transação.
+     *
+     * @return quantidade de músicas cadastradas
+     * @throws IllegalArgumentException com as linhas do lote, se ele não pôde ser gravado
+     */
+    private int gravarLote(List<String[]> lote, Path arquivo, int primeira, int ultima, int gravadasAntes) {
+        // Se a transação falhar, os artistas criados nela não existem no banco:
+        // precisam sair do mapa de artistas conhecidos
+        Set<String> conhecidosAntes = contexto.artistasConhecidos();
+        try {
+            return gravarLoteEmTransacao(lote);
+        } catch (IllegalArgumentException | DataAccessException | TransactionException e) {
+            contexto.esquecerArtistasExceto(conhecidosAntes);
+            throw new IllegalArgumentException("linhas " + primeira + "-" + ultima + " de " + arquivo
+                    + " não gravadas (" + ContextoLote.mensagem(e) + "); " + gravadasAntes
+                    + " músicas já gravadas", e);
+        } catch (RuntimeException e) {
+            contexto.esquecerArtistasExceto(conhecidosAntes);
+            throw e;
+        }
+    }
+
+    private int gravarLoteEmTransacao(List<String[]> lote) {
+        Integer gravadas = transacao.execute(status -> {
+            int total = 0;
+            // Álbuns usados neste lote (só valem dentro da transação; chave: artista|album em minúsculo)
+            Map<String, Album> albuns = new HashMap<>();
+            for (String[] colunas : lote) {
+                if (colunas.length < 2) {
+                    throw new IllegalArgumentException("Linha inválida (esperado artista;tipo;musica): "
+                            + String.join(";", colunas));
+                }
+                Artista artista = contexto.obterOuCriarArtista(colunas[0].trim(),
+                        TipoArtista.fromString(colunas[1].trim()));
+                if (colunas.length > 2 && !colunas[2].isBlank()) {
+                    Musica musica = new Musica(colunas[2].trim(), artista);
+                    if (colunas.length > 3 && !colunas[3].isBlank()) {
+                        String titulo = colunas[3].trim();
+                        Integer ano = colunas.length > 4 && !colunas[4].isBlank() ? Integer.valueOf(colunas[4].trim()) : null;
+                        musica.setAlbum(albuns.computeIfAbsent((artista.getNome() + "|" + titulo).toLowerCase(Locale.ROOT),
+                                chave -> discografia.getObject().obterOuCriarAlbum(artista, titulo, ano)));
+                    }
+                    musicaRepository.save(musica);
+                    total++;
+                }
+            }
+            return total;
+        });
+        return gravadas == null ? 0 : gravadas;
+    }
+
+    /**
+     * Cadastra várias músicas de um artista em uma única transação.
+     * O artista é buscado uma única vez e não é regravado (apenas INSERTs em musicas).
+     */
+    private void adicionarMusicas(String nomeArtista, List<String> titulos) {
+        if (titulos.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um título de música");
+        }
+        cadastro.getObject().adicionarMusicas(contexto.exigirArtista(nomeArtista).getId(), titulos);
+        saida.println(titulos.size() + " músicas cadastradas para " + nomeArtista + ".");
+    }
+
+    /**
+     * Cadastra um álbum (ano "-" = desconhecido) com suas faixas em uma única transação.
+     */
+    private void adicionarAlbum(String nomeArtista, String titulo, String ano, List<String> faixas) {
+        Album album = discografia.getObject().adicionarAlbum(contexto.exigirArtista(nomeArtista).getId(), titulo,
+                ano.equals("-") ? null : Integer.valueOf(ano), faixas);
+        saida.println(album + " com " + faixas.size() + " faixas cadastradas para " + nomeArtista + ".");
+    }
+
+    /**
+     * Altera o tipo de um artista (com nova tentativa automática em caso de conflito de versão).
+     */
+    private void alterarTipo(String nomeArtista, String tipo) {
+        Artista artista = cadastro.getObject().alterarTipo(contexto.exigirArtista(nomeArtista).getId(),
+                TipoArtista.fromString(tipo));
+        contexto.lembrarArtista(nomeArtista, artista);
+        saida.println(artista + " - versão " + artista.getVersao());
+    }
+
+    /**
+     * Mede a vazão de cadastros de músicas simultâneos para o MESMO artista,
+     * com 1, 2, 4... até maxThreads threads (cada música em sua própria transação).
+     *
+     * Como as músicas são inseridas sem alterar o artista, não há bloqueio nem conflito
+     * de versão entre as threads: a vazão deve crescer com o número de threads
+     * (até o limite do pool de conexões e do banco).
+     *
+     * Atenção: as músicas criadas ("bench-...") ficam gravadas no banco.
+     */
+    private void medirCadastrosConcorrentes(String nomeArtista, int maxThreads, int musicasPorThread) {
+        Long artistaId = contexto.exigirArtista(nomeArtista).getId();
+        CadastroService servico = cadastro.getObject();
+        saida.println("threads | músicas | tempo (ms) | músicas/s");
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            int rodada = threads;
+            List<Callable<Void>> tarefas = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                tarefas.add(() -> {
+                    for (int i = 0; i < musicasPorThread; i++) {
+                        servico.adicionarMusicas(artistaId, List.of("bench-" + rodada + "-" + thread + "-" + i));
+                    }
+                    return null;
+                });
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                long inicio = System.nanoTime();
+                for (Future<Void> resultado : executor.invokeAll(tarefas)) {
+                    resultado.get();
+                }
+                long milissegundos = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+                int total = threads * musicasPorThread;
+                saida.printf("%7d | %7d | %10d | %9d%n", threads, total, milissegundos, total * 1000L / milissegundos);
+                saida.flush();
+            } catch (ExecutionException e) {
+                saida.println("ERRO durante a medição: " + e.getCause().getMessage());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Exclui os artistas com suas músicas e álbuns (comandos DELETE em lotes, ver ExclusaoCatalogoService).
+     */
+    private void excluirArtistas(List<String> nomes) {
+        if (nomes.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um artista");
+        }
+        List<Long> ids = nomes.stream().map(nome -> contexto.exigirArtista(nome).getId()).toList();
+        saida.println(exclusao.getObject().excluirArtistas(ids) + ".");
+        nomes.forEach(contexto::esquecerArtista);
+    }
+
+    private void excluirTipo(String tipo) {
+        saida.println(exclusao.getObject().excluirArtistasPorTipo(TipoArtista.fromString(tipo)) + ".");
+        contexto.esquecerArtistas();
+    }
+
+    private void excluirMusicas(String nomeArtista, List<String> titulos) {
+        if (titulos.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um título de música");
+        }
+        Long artistaId = contexto.exigirArtista(nomeArtista).getId();
+        List<Long> ids = titulos.stream()
+                .map(titulo -> musicaRepository.findFirstByArtistaIdAndTituloIgnoreCase(artistaId, titulo)
+                        .orElseThrow(() -> new IllegalArgumentException("Música não encontrada: " + titulo))
+                        .getId())
+                .toList();
+        saida.println(exclusao.getObject().excluirMusicas(ids) + ".");
+    }
+}
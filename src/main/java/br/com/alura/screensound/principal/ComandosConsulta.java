@@ -0,0 +1,160 @@
+package br.com.alura.screensound.principal;
+
+import br.com.alura.screensound.model.Musica;
+import br.com.alura.screensound.model.TipoArtista;
+import br.com.alura.screensound.repository.MusicaRepository;
+import br.com.alura.screensound.service.ConsultaAPI;
+import br.com.alura.screensound.service.DiscografiaService;
+import br.com.alura.screensound.service.ExportadorCatalogo;
+import br.com.alura.screensound.service.NavegacaoCatalogoService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static br.com.alura.screensound.principal.ContextoLote.exigir;
+
+/**
+ * Comandos do modo lote que só leem o catálogo (ou dados externos sobre ele):
+ * list, search, artist, browse, export, info e enrich.
+ */
+final class ComandosConsulta implements ComandosLote {
+
+    private final ContextoLote contexto;
+    private final PrintWriter saida;
+    private final MusicaRepository musicaRepository;
+    private final TransactionTemplate transacao;
+    private final ObjectProvider<ExportadorCatalogo> exportador;
+    private final ObjectProvider<DiscografiaService> discografia;
+    private final ObjectProvider<NavegacaoCatalogoService> navegacao;
+
+    ComandosConsulta(ContextoLote contexto, MusicaRepository musicaRepository, TransactionTemplate transacao,
+                     ObjectProvider<ExportadorCatalogo> exportador, ObjectProvider<DiscografiaService> discografia,
+                     ObjectProvider<NavegacaoCatalogoService> navegacao) {
+        this.contexto = contexto;
+        this.saida = contexto.saida();
+        this.musicaRepository = musicaRepository;
+        this.transacao = transacao;
+        this.exportador = exportador;
+        this.discografia = discografia;
+        this.navegacao = navegacao;
+    }
+
+    @Override
+    public boolean executar(String comando, List<String> parametros) throws IOException, SQLException {
+        switch (comando) {
+            case "list" -> listar();
+            case "search" -> buscar(String.join(" ", parametros));
+            case "artist" -> exibirArtista(exigir(parametros, 0, "artista"),
+                    parametros.size() > 1 && parametros.get(1).equalsIgnoreCase("faixas"));
+            case "browse" -> navegar(parametros);
+            case "export" -> exportar(Path.of(exigir(parametros, 0, "arquivo")),
+                    parametros.size() > 1 ? parametros.get(1) : null);
+            case "info" -> {
+                exigir(parametros, 0, "artista");
+                saida.println(ConsultaAPI.obterInformacao(String.join(" ", parametros)));
+            }
+            case "enrich" -> saida.println(navegacao.getObject().enriquecerArtistas(
+                    parametros.isEmpty() ? 25 : Integer.parseInt(parametros.get(0))) + " artistas consultados.");
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lista todas as músicas usando a saída com buffer.
+     *
+     * As linhas (título, artista) são lidas aos poucos do banco: nenhuma entidade é criada
+     * e o catálogo inteiro nunca fica na memória de uma vez.
+     */
+    private void listar() {
+        transacao.executeWithoutResult(status -> {
+            try (Stream<Object[]> linhas = musicaRepository.listarTitulosEArtistas()) {
+                linhas.forEach(linha -> saida.println(Musica.descrever((String) linha[0], (String) linha[1])));
+            }
+        });
+    }
+
+    /**
+     * Busca músicas pelo nome (parcial) do artista usando a @Query do ArtistaRepository.
+     */
+    private void buscar(String nome) {
+        List<Musica> musicas = contexto.artistaRepository().buscaMusicasPorArtista(nome);
+        if (musicas.isEmpty()) {
+            saida.println("Nenhuma música encontrada para este artista!");
+        } else {
+            musicas.forEach(saida::println);
+        }
+    }
+
+    /**
+     * Exibe a página do artista: álbuns com a quantidade de faixas (e, opcionalmente, os títulos).
+     */
+    private void exibirArtista(String nomeArtista, boolean comFaixas) {
+        DiscografiaService.Pagina pagina = discografia.getObject().pagina(nomeArtista, comFaixas)
+                .orElseThrow(() -> new IllegalArgumentException("Artista não encontrado: " + nomeArtista));
+        saida.println("Artista: " + pagina.artista() + " (" + pagina.tipo() + ")");
+        for (DiscografiaService.AlbumResumo album : pagina.albuns()) {
+            saida.println("  " + album.titulo() + (album.ano() != null ? " (" + album.ano() + ")" : "")
+                    + " - " + album.faixas() + " faixas");
+            album.titulosFaixas().forEach(faixa -> saida.println("    " + faixa));
+        }
+        saida.println("  Singles: " + pagina.singles());
+    }
+
+    /**
+     * Navega pelo catálogo com filtros no formato chave=valor (todos opcionais):
+     * tipo, nome (início do nome do artista), titulo (trecho), genero, pais,
+     * pagina (começa em 1), tamanho e total (auto, exato ou nenhum).
+     */
+    private void navegar(List<String> parametros) {
+        Map<String, String> opcoes = new HashMap<>();
+        for (String parametro : parametros) {
+            int igual = parametro.indexOf('=');
+            if (igual < 1) {
+                throw new IllegalArgumentException("Use chave=valor: " + parametro);
+            }
+            opcoes.put(parametro.substring(0, igual).toLowerCase(Locale.ROOT), parametro.substring(igual + 1));
+        }
+        Set<String> conhecidas = Set.of("tipo", "nome", "titulo", "genero", "pais", "pagina", "tamanho", "total");
+        if (!conhecidas.containsAll(opcoes.keySet())) {
+            throw new IllegalArgumentException("Filtros válidos: " + conhecidas);
+        }
+
+        var filtro = new NavegacaoCatalogoService.Filtro(
+                opcoes.containsKey("tipo") ? TipoArtista.fromString(opcoes.get("tipo")) : null,
+                opcoes.get("nome"), opcoes.get("titulo"), opcoes.get("genero"), opcoes.get("pais"));
+        int pagina = Integer.parseInt(opcoes.getOrDefault("pagina", "1"));
+        var resultado = navegacao.getObject().pagina(filtro, pagina - 1,
+                Integer.parseInt(opcoes.getOrDefault("tamanho", "20")),
+                NavegacaoCatalogoService.Contagem.fromString(opcoes.getOrDefault("total", "auto")));
+
+        resultado.itens().forEach(saida::println);
+        String total = resultado.total() == null ? ""
+                : (resultado.totalEstimado() ? " | total: ~" : " | total: ") + resultado.total() + " músicas";
+        saida.println("Página " + pagina + total + (resultado.temProxima() ? " | há mais páginas" : " | última página"));
+    }
+
+    /**
+     * Exporta o catálogo completo (artistas + músicas) para um arquivo.
+     * Sem formato informado, usa a extensão do arquivo (.jsonl = JSON-lines, senão CSV).
+     */
+    private void exportar(Path destino, String formato) throws IOException, SQLException {
+        ExportadorCatalogo.Formato formatoExportacao = formato == null
+                ? ExportadorCatalogo.Formato.doArquivo(destino)
+                : ExportadorCatalogo.Formato.valueOf(formato.toUpperCase(Locale.ROOT));
+        long linhas = exportador.getObject().exportar(destino, formatoExportacao);
+        saida.println(linhas + " linhas exportadas para " + destino + " (" + formatoExportacao + ").");
+    }
+}
@@ -0,0 +1,20 @@
+package br.com.alura.screensound.principal;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Um grupo de comandos do modo lote (ex: playlists, reproduções).
+ *
+ * O ModoLote oferece o comando a cada grupo, na ordem, até um deles reconhecer o nome.
+ */
+interface ComandosLote {
+
+    /**
+     * Executa o comando, se ele for deste grupo.
+     *
+     * @return false se o comando não pertence a este grupo (nada foi executado)
+     */
+    boolean executar(String comando, List<String> parametros) throws IOException, SQLException;
+}
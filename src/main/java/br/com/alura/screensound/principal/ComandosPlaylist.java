@@ -0,0 +1,97 @@
+package br.com.alura.screensound.principal;
+
+import br.com.alura.screensound.model.Musica;
+import br.com.alura.screensound.model.Playlist;
+import br.com.alura.screensound.repository.MusicaRepository;
+import br.com.alura.screensound.service.PlaylistService;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+import static br.com.alura.screensound.principal.ContextoLote.exigir;
+
+/**
+ * Comandos do modo lote de playlists: playlist-create, playlist-add, playlist-move,
+ * playlist-remove, playlist-show e playlist-rebalance.
+ */
+final class ComandosPlaylist implements ComandosLote {
+
+    private final ContextoLote contexto;
+    private final PrintWriter saida;
+    private final MusicaRepository musicaRepository;
+    private final ObjectProvider<PlaylistService> playlists;
+
+    ComandosPlaylist(ContextoLote contexto, MusicaRepository musicaRepository,
+                     ObjectProvider<PlaylistService> playlists) {
+        this.contexto = contexto;
+        this.saida = contexto.saida();
+        this.musicaRepository = musicaRepository;
+        this.playlists = playlists;
+    }
+
+    @Override
+    public boolean executar(String comando, List<String> parametros) {
+        switch (comando) {
+            case "playlist-create" -> saida.println(
+                    playlists.getObject().criar(exigir(parametros, 0, "nome")) + " criada.");
+            case "playlist-add" -> adicionarNaPlaylist(exigir(parametros, 0, "playlist"),
+                    exigir(parametros, 1, "artista"), exigir(parametros, 2, "titulo"));
+            case "playlist-move" -> moverNaPlaylist(exigir(parametros, 0, "playlist"),
+                    Long.valueOf(exigir(parametros, 1, "item")), exigir(parametros, 2, "depois-de"));
+            case "playlist-remove" -> {
+                playlists.getObject().remover(exigirPlaylist(exigir(parametros, 0, "playlist")).getId(),
+                        Long.valueOf(exigir(parametros, 1, "item")));
+                saida.println("Item removido.");
+            }
+            case "playlist-show" -> exibirPlaylist(exigir(parametros, 0, "playlist"),
+                    parametros.size() > 1 ? Integer.parseInt(parametros.get(1)) : 20,
+                    parametros.size() > 2 ? parametros.get(2) : null);
+            case "playlist-rebalance" -> saida.println(playlists.getObject().rebalancear(
+                    exigirPlaylist(exigir(parametros, 0, "playlist")).getId()) + " itens rebalanceados.");
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adiciona uma música ao final de uma playlist.
+     */
+    private void adicionarNaPlaylist(String nomePlaylist, String nomeArtista, String titulo) {
+        Playlist playlist = exigirPlaylist(nomePlaylist);
+        Musica musica = musicaRepository.findFirstByArtistaIdAndTituloIgnoreCase(
+                        contexto.exigirArtista(nomeArtista).getId(), titulo)
+                .orElseThrow(() -> new IllegalArgumentException("Música não encontrada: " + titulo));
+        Long itemId = playlists.getObject().adicionar(playlist.getId(), musica.getId());
+        saida.println("Item " + itemId + " adicionado à " + playlist + ".");
+    }
+
+    /**
+     * Move um item para depois de outro item ("inicio" = primeira posição).
+     */
+    private void moverNaPlaylist(String nomePlaylist, Long itemId, String depoisDe) {
+        Long depoisDeItemId = depoisDe.equalsIgnoreCase("inicio") ? null : Long.valueOf(depoisDe);
+        String posicao = playlists.getObject().mover(exigirPlaylist(nomePlaylist).getId(), itemId, depoisDeItemId);
+        saida.println("Item " + itemId + " movido (nova posição: " + posicao + ").");
+    }
+
+    /**
+     * Exibe uma página da playlist e o comando para a página seguinte.
+     */
+    private void exibirPlaylist(String nomePlaylist, int tamanho, String depoisDe) {
+        Playlist playlist = exigirPlaylist(nomePlaylist);
+        List<PlaylistService.Item> itens = playlists.getObject().pagina(playlist.getId(), depoisDe, tamanho);
+        itens.forEach(saida::println);
+        if (itens.size() == tamanho) {
+            saida.println("Próxima página: playlist-show \"" + playlist.getNome() + "\" " + tamanho
+                    + " " + itens.get(itens.size() - 1).posicao());
+        }
+    }
+
+    private Playlist exigirPlaylist(String nome) {
+        return playlists.getObject().buscar(nome)
+                .orElseThrow(() -> new IllegalArgumentException("Playlist não encontrada: " + nome));
+    }
+}
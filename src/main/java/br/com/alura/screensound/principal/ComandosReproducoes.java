@@ -0,0 +1,157 @@
+package br.com.alura.screensound.principal;
+
+import br.com.alura.screensound.model.Musica;
+import br.com.alura.screensound.repository.MusicaRepository;
+import br.com.alura.screensound.service.ReproducoesService;
+
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static br.com.alura.screensound.principal.ContextoLote.exigir;
+
+/**
+ * Comandos do modo lote de reproduções: play, bench-plays e charts.
+ */
+final class ComandosReproducoes implements ComandosLote {
+
+    private final ContextoLote contexto;
+    private final PrintWriter saida;
+    private final MusicaRepository musicaRepository;
+    private final ReproducoesService reproducoes;
+
+    ComandosReproducoes(ContextoLote contexto, MusicaRepository musicaRepository, ReproducoesService reproducoes) {
+        this.contexto = contexto;
+        this.saida = contexto.saida();
+        this.musicaRepository = musicaRepository;
+        this.reproducoes = reproducoes;
+    }
+
+    @Override
+    public boolean executar(String comando, List<String> parametros) throws SQLException {
+        switch (comando) {
+            case "play" -> tocar(exigir(parametros, 0, "artista"), exigir(parametros, 1, "titulo"),
+                    parametros.size() > 2 ? Integer.parseInt(parametros.get(2)) : 1);
+            case "bench-plays" -> medirReproducoes(
+                    parametros.isEmpty() ? 1_000_000 : Integer.parseInt(parametros.get(0)),
+                    parametros.size() > 1 ? Integer.parseInt(parametros.get(1)) : 4);
+            case "charts" -> exibirRanking(
+                    ReproducoesService.Periodo.fromString(parametros.isEmpty() ? "dia" : parametros.get(0)),
+                    parametros.size() > 1 ? Integer.parseInt(parametros.get(1)) : 10,
+                    parametros.size() > 2 ? LocalDate.parse(parametros.get(2)) : LocalDate.now());
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Registra reproduções de uma música e espera elas serem gravadas.
+     */
+    private void tocar(String nomeArtista, String titulo, int vezes) {
+        exigirReproducoesAtivas();
+        Musica musica = musicaRepository.findFirstByArtistaIdAndTituloIgnoreCase(
+                        contexto.exigirArtista(nomeArtista).getId(), titulo)
+                .orElseThrow(() -> new IllegalArgumentException("Música não encontrada: " + titulo));
+        try {
+            for (int i = 0; i < vezes; i++) {
+                reproducoes.registrar(musica.getId());
+            }
+            reproducoes.aguardarGravacao();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        saida.println(vezes + " reproduções registradas para " + musica.getTitulo() + ".");
+    }
+
+    /**
+     * Mede a vazão do registro de reproduções: várias threads registram reproduções de músicas
+     * sorteadas entre as cadastradas, espalhadas pelos últimos 7 dias.
+     *
+     * Mostra duas medidas:
+     * - registro: quanto tempo as threads levaram para entregar as reproduções ao buffer
+     * - gravação: quanto tempo até TODAS estarem no banco (COPY + contadores)
+     *
+     * Atenção: as reproduções geradas ficam gravadas no banco e entram no ranking.
+     */
+    private void medirReproducoes(int total, int threads) {
+        exigirReproducoesAtivas();
+        long[] ids = musicaRepository.listarIds().stream().mapToLong(Long::longValue).toArray();
+        if (ids.length == 0) {
+            throw new IllegalArgumentException("Nenhuma música cadastrada");
+        }
+        long agora = Instant.now().toEpochMilli();
+        long seteDias = 7L * 24 * 60 * 60 * 1000;
+
+        List<Callable<Void>> tarefas = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int quantidade = total / threads + (t < total % threads ? 1 : 0);
+            tarefas.add(() -> {
+                ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                for (int i = 0; i < quantidade; i++) {
+                    reproducoes.registrar(ids[aleatorio.nextInt(ids.length)],
+                            Instant.ofEpochMilli(agora - aleatorio.nextLong(seteDias)));
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long inicio = System.nanoTime();
+            for (Future<Void> resultado : executor.invokeAll(tarefas)) {
+                resultado.get();
+            }
+            long registro = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+            long descartadas = reproducoes.aguardarGravacao();
+            long gravacao = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+
+            saida.printf("Registro: %d reproduções em %d ms (%d/s)%n", total, registro, total * 1000L / registro);
+            saida.printf("Gravação: %d ms (%d/s)%n", gravacao, total * 1000L / gravacao);
+            if (descartadas > 0) {
+                saida.println("ATENÇÃO: " + descartadas + " reproduções descartadas por falhas de gravação.");
+            }
+        } catch (ExecutionException e) {
+            saida.println("ERRO durante a medição: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Ranking de músicas e artistas mais tocados no período, com o tempo da consulta.
+     */
+    private void exibirRanking(ReproducoesService.Periodo periodo, int quantidade, LocalDate data) throws SQLException {
+        exigirReproducoesAtivas();
+        long inicio = System.nanoTime();
+        List<ReproducoesService.MusicaTocada> musicas = reproducoes.maisTocadas(periodo, data, quantidade);
+        List<ReproducoesService.ArtistaTocado> artistas = reproducoes.artistasMaisTocados(periodo, data, quantidade);
+        long milissegundos = (System.nanoTime() - inicio) / 1_000_000;
+
+        saida.println("Músicas mais tocadas (" + periodo.name().toLowerCase(Locale.ROOT) + " até " + data + "):");
+        musicas.forEach(saida::println);
+        saida.println("Artistas mais tocados:");
+        artistas.forEach(saida::println);
+        saida.println("Consulta em " + milissegundos + " ms.");
+    }
+
+    private void exigirReproducoesAtivas() {
+        if (!reproducoes.isAtivo()) {
+            throw new IllegalArgumentException("Registro de reproduções desativado (screensound.reproducoes.enabled=false)");
+        }
+    }
+}
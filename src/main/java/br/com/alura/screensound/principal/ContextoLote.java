@@ -0,0 +1,115 @@
+package br.com.alura.screensound.principal;
+
+import br.com.alura.screensound.model.Artista;
+import br.com.alura.screensound.model.TipoArtista;
+import br.com.alura.screensound.repository.ArtistaRepository;
+import org.springframework.core.NestedRuntimeException;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Estado compartilhado pelos grupos de comandos de uma execução do modo lote:
+ * a saída com buffer e os artistas já encontrados.
+ */
+final class ContextoLote {
+
+    private final ArtistaRepository artistaRepository;
+
+    // Artistas já carregados/criados nesta execução (chave: nome em minúsculo)
+    private final Map<String, Artista> artistasConhecidos = new HashMap<>();
+
+    // Saída com buffer: evita um flush a cada linha como no System.out.println
+    private final PrintWriter saida = new PrintWriter(
+            new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)), false);
+
+    ContextoLote(ArtistaRepository artistaRepository) {
+        this.artistaRepository = artistaRepository;
+    }
+
+    PrintWriter saida() {
+        return saida;
+    }
+
+    ArtistaRepository artistaRepository() {
+        return artistaRepository;
+    }
+
+    Optional<Artista> buscarArtista(String nome) {
+        String chave = nome.toLowerCase(Locale.ROOT);
+        Artista conhecido = artistasConhecidos.get(chave);
+        if (conhecido != null) {
+            return Optional.of(conhecido);
+        }
+        Optional<Artista> artista = artistaRepository.findByNomeIgnoreCase(nome);
+        artista.ifPresent(a -> artistasConhecidos.put(chave, a));
+        return artista;
+    }
+
+    Artista exigirArtista(String nome) {
+        return buscarArtista(nome)
+                .orElseThrow(() -> new IllegalArgumentException("Artista não encontrado: " + nome));
+    }
+
+    Artista obterOuCriarArtista(String nome, TipoArtista tipo) {
+        return buscarArtista(nome).orElseGet(() -> {
+            Artista novo = artistaRepository.save(new Artista(nome, tipo));
+            artistasConhecidos.put(nome.toLowerCase(Locale.ROOT), novo);
+            return novo;
+        });
+    }
+
+    void lembrarArtista(String nome, Artista artista) {
+        artistasConhecidos.put(nome.toLowerCase(Locale.ROOT), artista);
+    }
+
+    void esquecerArtista(String nome) {
+        artistasConhecidos.remove(nome.toLowerCase(Locale.ROOT));
+    }
+
+    void esquecerArtistas() {
+        artistasConhecidos.clear();
+    }
+
+    int quantidadeArtistasConhecidos() {
+        return artistasConhecidos.size();
+    }
+
+    /**
+     * Nomes conhecidos agora; com esquecerArtistasExceto() desfaz o que uma transação
+     * que falhou acrescentou (esses artistas não existem no banco).
+     */
+    Set<String> artistasConhecidos() {
+        return new HashSet<>(artistasConhecidos.keySet());
+    }
+
+    void esquecerArtistasExceto(Set<String> nomes) {
+        artistasConhecidos.keySet().retainAll(nomes);
+    }
+
+    static String exigir(List<String> parametros, int indice, String nome) {
+        if (parametros.size() <= indice) {
+            throw new IllegalArgumentException("Parâmetro obrigatório ausente: " + nome);
+        }
+        return parametros.get(indice);
+    }
+
+    /**
+     * Mensagem de um erro do Spring (acesso a dados, transação) sem a pilha de exceções
+     * que o envolvem: normalmente a mensagem do próprio banco.
+     */
+    static String mensagem(RuntimeException e) {
+        return e instanceof NestedRuntimeException aninhada
+                ? aninhada.getMostSpecificCause().getMessage()
+                : e.getMessage();
+    }
+}
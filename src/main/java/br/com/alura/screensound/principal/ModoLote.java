@@ -0,0 +1,230 @@
+package br.com.alura.screensound.principal;
+
+import br.com.alura.screensound.repository.ArtistaRepository;
+import br.com.alura.screensound.repository.MusicaRepository;
+import br.com.alura.screensound.service.AutocompletarService;
+import br.com.alura.screensound.service.BuscaTextualService;
+import br.com.alura.screensound.service.CadastroService;
+import br.com.alura.screensound.service.DiscografiaService;
+import br.com.alura.screensound.service.ExclusaoCatalogoService;
+import br.com.alura.screensound.service.ExportadorCatalogo;
+import br.com.alura.screensound.service.NavegacaoCatalogoService;
+import br.com.alura.screensound.service.PlaylistService;
+import br.com.alura.screensound.service.ReproducoesService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Modo lote (batch) - executa comandos sem abrir o menu interativo.
+ *
+ * Uso:
+ *   java -jar screensound.jar import artistas.csv  (linhas: artista;tipo;musica[;album[;ano]])
+ *   java -jar screensound.jar list
+ *   java -jar screensound.jar search madonna
+ *   java -jar screensound.jar add-songs "Madonna" "Like a Prayer" "Material Girl"
+ *   java -jar screensound.jar export catalogo.csv.gz   (csv ou jsonl, .gz compacta)
+ *   java -jar screensound.jar set-type "Madonna" solo
+ *   java -jar screensound.jar bench-writers "Madonna" 8 200   (vazão de cadastros concorrentes)
+ *   java -jar screensound.jar reindex 4           (reconstrói o índice de busca textual)
+ *   java -jar screensound.jar find madona prayer  (busca textual por relevância)
+ *   java -jar screensound.jar suggest mad         (autocompletar artistas e títulos)
+ *   java -jar screensound.jar play "Madonna" "Like a Prayer" 3   (registra reproduções)
+ *   java -jar screensound.jar bench-plays 1000000 8   (vazão do registro de reproduções)
+ *   java -jar screensound.jar charts semana 10    (mais tocadas: dia ou semana)
+ *   java -jar screensound.jar playlist-add "Anos 80" "Madonna" "Like a Prayer"
+ *   java -jar screensound.jar playlist-show "Anos 80" 50   (página de 50 itens)
+ *   java -jar screensound.jar add-album "Madonna" "True Blue" 1986 "Papa Don't Preach" "Open Your Heart"
+ *   java -jar screensound.jar artist "Madonna" faixas   (página do artista: álbuns e faixas)
+ *   java -jar screensound.jar browse tipo=banda nome=the titulo=love pagina=2   (navegação com filtros)
+ *   java -jar screensound.jar enrich 25           (gênero e país de 25 artistas via TheAudioDB)
+ *   java -jar screensound.jar delete-artist "Madonna" "Queen"   (artistas com músicas e álbuns)
+ *   java -jar screensound.jar delete-type dupla   (todos os artistas do tipo)
+ *   java -jar screensound.jar delete-songs "Madonna" "Like a Prayer"
+ *   java -jar screensound.jar file comandos.txt   (um comando por linha)
+ *
+ * Por que um modo lote?
+ * - Scripts (ex: jobs noturnos) não precisam simular o teclado no menu
+ * - Vários comandos rodam no MESMO processo (a inicialização é paga uma vez)
+ * - A importação agrupa as linhas em transações de TAMANHO_LOTE linhas,
+ *   em vez de um commit por registro
+ * - Artistas já encontrados ficam em um mapa, evitando buscar o mesmo artista várias vezes
+ *
+ * Organização:
+ * - Cada grupo de comandos fica em sua classe (ComandosCadastro, ComandosConsulta, ComandosBusca,
+ *   ComandosReproducoes, ComandosPlaylist); o ModoLote só escolhe o grupo e trata os erros
+ * - O estado da execução (saída e artistas conhecidos) fica no ContextoLote, dividido pelos grupos
+ * - Um erro do banco em um comando é informado com o comando (e a linha, no comando file)
+ *   e não interrompe os comandos seguintes
+ */
+public class ModoLote {
+
+    private final ContextoLote contexto;
+    private final PrintWriter saida;
+    private final List<ComandosLote> grupos;
+
+    /**
+     * Os serviços usados só por alguns comandos chegam como ObjectProvider: cada um é criado
+     * (com o perfil startup, inicialização preguiçosa) só quando um comando que o usa é executado.
+     * Ex: um "list" não cria os serviços de playlists, exclusão nem exportação.
+     */
+    public ModoLote(ArtistaRepository artistaRepository, MusicaRepository musicaRepository,
+                    TransactionTemplate transacao, ObjectProvider<ExportadorCatalogo> exportador,
+                    ObjectProvider<CadastroService> cadastro, BuscaTextualService buscaTextual,
+                    AutocompletarService autocompletar, ReproducoesService reproducoes,
+                    ObjectProvider<PlaylistService> playlists, ObjectProvider<DiscografiaService> discografia,
+                    ObjectProvider<NavegacaoCatalogoService> navegacao,
+                    ObjectProvider<ExclusaoCatalogoService> exclusao) {
+        this.contexto = new ContextoLote(artistaRepository);
+        this.saida = contexto.saida();
+        this.grupos = List.of(
+                new ComandosCadastro(contexto, musicaRepository, transacao, cadastro, discografia, exclusao),
+                new ComandosConsulta(contexto, musicaRepository, transacao, exportador, discografia, navegacao),
+                new ComandosBusca(contexto, buscaTextual, autocompletar),
+                new ComandosReproducoes(contexto, musicaRepository, reproducoes),
+                new ComandosPlaylist(contexto, musicaRepository, playlists));
+    }
+
+    /**
+     * Executa um comando (primeiro argumento) com seus parâmetros.
+     *
+     * @param argumentos - comando seguido dos parâmetros
+     */
+    public void executar(List<String> argumentos) {
+        try {
+            executarComando(argumentos, "");
+        } finally {
+            saida.flush();
+        }
+    }
+
+    /**
+     * @param origem - onde o comando foi escrito (ex: "comandos.txt:12 "), para as mensagens de erro
+     */
+    private void executarComando(List<String> argumentos, String origem) {
+        if (argumentos.isEmpty()) {
+            return;
+        }
+        String comando = argumentos.get(0);
+        List<String> parametros = argumentos.subList(1, argumentos.size());
+
+        try {
+            if (comando.equals("file")) {
+                executarArquivo(Path.of(ContextoLote.exigir(parametros, 0, "arquivo")));
+                return;
+            }
+            for (ComandosLote grupo : grupos) {
+                if (grupo.executar(comando, parametros)) {
+                    return;
+                }
+            }
+            exibirUso(comando);
+        } catch (IllegalArgumentException | IOException | SQLException e) {
+            saida.println("ERRO (" + origem + comando + "): " + e.getMessage());
+        } catch (DataAccessException | TransactionException e) {
+            // Banco fora do ar, restrição violada, conflito de versão...: informa e segue para o próximo comando
+            saida.println("ERRO (" + origem + comando + "): " + ContextoLote.mensagem(e));
+        }
+    }
+
+    /**
+     * Executa um arquivo de comandos (um comando por linha, mesmos nomes da linha de comando).
+     * Argumentos com espaços podem ser escritos entre aspas duplas.
+     * Um comando com erro é informado com o número da linha; os seguintes continuam sendo executados.
+     */
+    private void executarArquivo(Path arquivo) throws IOException {
+        try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            String linha;
+            int numero = 0;
+            while ((linha = leitor.readLine()) != null) {
+                numero++;
+                if (linha.isBlank() || linha.startsWith("#")) {
+                    continue;
+                }
+                List<String> argumentos = separarArgumentos(linha);
+                if (!argumentos.isEmpty() && argumentos.get(0).equals("file")) {
+                    saida.println("ERRO (" + arquivo + ":" + numero
+                            + "): comando 'file' não pode ser usado dentro de um arquivo de comandos");
+                    continue;
+                }
+                executarComando(argumentos, arquivo + ":" + numero + " ");
+            }
+        }
+    }
+
+    /**
+     * Separa uma linha em argumentos, respeitando trechos entre aspas duplas.
+     * Exemplo: add-songs "Pink Floyd" "Time" -> [add-songs, Pink Floyd, Time]
+     */
+    static List<String> separarArgumentos(String linha) {
+        List<String> argumentos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        boolean temConteudo = false;
+
+        for (char c : linha.toCharArray()) {
+            if (c == '"') {
+                entreAspas = !entreAspas;
+                temConteudo = true;
+            } else if (Character.isWhitespace(c) && !entreAspas) {
+                if (temConteudo) {
+                    argumentos.add(atual.toString());
+                    atual.setLength(0);
+                    temConteudo = false;
+                }
+            } else {
+                atual.append(c);
+                temConteudo = true;
+            }
+        }
+        if (temConteudo) {
+            argumentos.add(atual.toString());
+        }
+        return argumentos;
+    }
+
+    private void exibirUso(String comando) {
+        saida.println("Comando desconhecido: " + comando);
+        saida.println("""
+                Comandos disponíveis:
+                  import <arquivo.csv>                 (linhas: artista;tipo;musica[;album[;ano]])
+                  list
+                  search <nome do artista>
+                  add-songs <artista> <titulo> [titulo...]
+                  add-album <artista> <album> <ano|-> <titulo> [titulo...]
+                  artist <artista> [faixas]
+                  set-type <artista> <solo|dupla|banda>
+                  bench-writers <artista> [threads] [musicas por thread]
+                  reindex [threads]
+                  find <texto>
+                  suggest <prefixo>
+                  play <artista> <titulo> [vezes]
+                  bench-plays [reproducoes] [threads]
+                  charts [dia|semana] [quantidade] [AAAA-MM-DD]
+                  playlist-create <nome>
+                  playlist-add <playlist> <artista> <titulo>
+                  playlist-move <playlist> <item> <item anterior|inicio>
+                  playlist-remove <playlist> <item>
+                  playlist-show <playlist> [tamanho] [depois da posicao]
+                  playlist-rebalance <playlist>
+                  info <artista>                       (dados do TheAudioDB)
+                  enrich [quantidade]                  (gênero e país dos artistas via TheAudioDB)
+                  browse [tipo=] [nome=] [titulo=] [genero=] [pais=] [pagina=] [tamanho=] [total=auto|exato|nenhum]
+                  delete-artist <artista> [artista...]   (com as músicas e os álbuns)
+                  delete-type <solo|dupla|banda>
+                  delete-songs <artista> <titulo> [titulo...]
+                  export <arquivo> [csv|jsonl]          (.gz no nome compacta com gzip)
+                  file <arquivo de comandos>""");
+    }
+}
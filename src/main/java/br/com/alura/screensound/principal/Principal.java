@@ -5,9 +5,19 @@ import br.com.alura.screensound.model.Musica;
 import br.com.alura.screensound.model.TipoArtista;
 import br.com.alura.screensound.repository.ArtistaRepository;
 import br.com.alura.screensound.repository.MusicaRepository;
+import br.com.alura.screensound.service.AutocompletarService;
+import br.com.alura.screensound.service.BuscaTextualService;
+import br.com.alura.screensound.service.CatalogoEmMemoria;
+import br.com.alura.screensound.service.ConsultaAPI;
+import br.com.alura.screensound.service.FilaCadastros;
+import br.com.alura.screensound.service.ReproducoesService;
+import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.function.LongSupplier;
 
 /**
  * Classe Principal - Contém a lógica de negócio e o menu interativo da aplicação.
@@ -27,6 +37,21 @@ public class Principal {
     // Repositories injetados pelo construtor (Dependency Injection)
     private final ArtistaRepository artistaRepository;
     private final MusicaRepository musicaRepository;
+
+    // Modelo de leitura em memória (usado nas listagens quando estiver ativo)
+    private final CatalogoEmMemoria catalogo;
+
+    // Busca textual por relevância (índice Lucene)
+    private final BuscaTextualService buscaTextual;
+
+    // Sugestões de nomes de artistas (autocompletar)
+    private final AutocompletarService autocompletar;
+
+    // Ranking das músicas mais tocadas
+    private final ReproducoesService reproducoes;
+
+    // Cadastros com gravação adiada (fila + diário local)
+    private final FilaCadastros filaCadastros;
     
     // Scanner para ler entradas do usuário via console
     private Scanner leitura = new Scanner(System.in);
@@ -46,10 +71,23 @@ public class Principal {
      * 
      * @param artistaRepository - repository para acessar artistas no banco
      * @param musicaRepository - repository para acessar músicas no banco
+     * @param catalogo - catálogo em memória (opcional, ver screensound.catalogo-memoria.enabled)
+     * @param buscaTextual - busca textual no índice Lucene
+     * @param autocompletar - sugestões de nomes (opcional, ver screensound.autocompletar.enabled)
+     * @param reproducoes - ranking das mais tocadas (opcional, ver screensound.reproducoes.enabled)
+     * @param filaCadastros - gravação adiada dos cadastros (opcional, ver screensound.fila-cadastros.enabled)
      */
-    public Principal(ArtistaRepository artistaRepository, MusicaRepository musicaRepository) {
+    public Principal(ArtistaRepository artistaRepository, MusicaRepository musicaRepository,
+                     CatalogoEmMemoria catalogo, BuscaTextualService buscaTextual,
+                     AutocompletarService autocompletar, ReproducoesService reproducoes,
+                     FilaCadastros filaCadastros) {
         this.artistaRepository = artistaRepository;
         this.musicaRepository = musicaRepository;
+        this.catalogo = catalogo;
+        this.buscaTextual = buscaTextual;
+        this.autocompletar = autocompletar;
+        this.reproducoes = reproducoes;
+        this.filaCadastros = filaCadastros;
     }
 
     /**
@@ -76,6 +114,9 @@ public class Principal {
                     3- Listar músicas
                     4- Buscar músicas por artistas
                     5- Buscar músicas por artistas (usando @Query)
+                    6- Busca textual (artistas e músicas)
+                    7- Pesquisar dados sobre um artista
+                    8- Mais tocadas (hoje e na semana)
                     
                     9- Sair
                     """;
@@ -105,6 +146,15 @@ public class Principal {
                 case 5:
                     buscarMusicasPorArtistaComQuery();
                     break;
+                case 6:
+                    buscaTextual();
+                    break;
+                case 7:
+                    pesquisarDadosDoArtista();
+                    break;
+                case 8:
+                    exibirMaisTocadas();
+                    break;
                 case 9:
                     System.out.println("Encerrando a aplicação!");
                     break;
@@ -131,6 +181,8 @@ public class Principal {
      * - artistaRepository.save() persiste no banco
      * - equalsIgnoreCase() ignora maiúsculas/minúsculas
      * - Try-catch trata erro de nome duplicado (UNIQUE constraint)
+     * - Com a fila de cadastros ativa, o artista é validado, confirmado na hora
+     *   e gravado no banco em segundo plano (ver FilaCadastros)
      */
     private void cadastrarArtistas() {
         var cadastrarNovo = "S";  // Inicializa com "S" para entrar no loop
@@ -148,15 +200,20 @@ public class Principal {
                 // Exemplo: "solo" -> TipoArtista.SOLO
                 TipoArtista tipoArtista = TipoArtista.fromString(tipo);
 
-                // Cria um novo objeto Artista
-                Artista artista = new Artista(nome, tipoArtista);
-                
-                // Salva o artista no banco de dados
-                // O Spring Data JPA gera automaticamente:
-                // INSERT INTO artistas (nome, tipo) VALUES (?, ?)
-                artistaRepository.save(artista);
-                
-                System.out.println("Artista cadastrado com sucesso!");
+                if (filaCadastros.isAtivo()) {
+                    // Gravação adiada: valida, confirma e grava no banco em segundo plano
+                    cadastrarNaFila(() -> filaCadastros.cadastrarArtista(nome, tipoArtista), "Artista");
+                } else {
+                    // Cria um novo objeto Artista
+                    Artista artista = new Artista(nome, tipoArtista);
+
+                    // Salva o artista no banco de dados
+                    // O Spring Data JPA gera automaticamente:
+                    // INSERT INTO artistas (nome, tipo) VALUES (?, ?)
+                    artistaRepository.save(artista);
+
+                    System.out.println("Artista cadastrado com sucesso!");
+                }
                 
             } catch (org.springframework.dao.DataIntegrityViolationException e) {
                 // Captura erro de nome duplicado (UNIQUE constraint)
@@ -182,15 +239,18 @@ public class Principal {
      * 3. Se encontrar o artista:
      *    - Solicita o título da música
      *    - Cria objeto Musica vinculado ao artista
-     *    - Adiciona a música na lista do artista
-     *    - Salva o artista (cascade salva a música automaticamente)
+     *    - Salva a música diretamente pelo MusicaRepository
      * 4. Se não encontrar, exibe mensagem de erro
      * 
      * Conceitos importantes:
      * - Optional<Artista>: Container que pode ou não conter um artista
      * - isPresent(): Verifica se o Optional contém um valor
      * - get(): Obtém o valor do Optional (só use após verificar isPresent())
-     * - Cascade: Ao salvar o artista, salva a música automaticamente
+     * - Por que não salvar o artista (cascade)?
+     *   - Salvar o artista faz um merge do artista inteiro com todas as músicas
+     *   - Duas pessoas cadastrando músicas do mesmo artista ao mesmo tempo poderiam
+     *     sobrescrever o trabalho uma da outra
+     *   - Salvando só a música, é apenas um INSERT: o artista não é alterado nem bloqueado
      */
     private void cadastrarMusicas() {
         System.out.println("Cadastrar música de que artista? ");
@@ -201,6 +261,21 @@ public class Principal {
         // Retorna Optional<Artista> (pode estar vazio se não encontrar)
         Optional<Artista> artista = artistaRepository.findByNomeContainingIgnoreCase(nome);
 
+        if (filaCadastros.isAtivo()) {
+            // O artista pode estar cadastrado no banco ou ainda na fila
+            Optional<String> nomeArtista = artista.map(Artista::getNome)
+                    .or(() -> filaCadastros.artistaPendente(nome));
+            if (nomeArtista.isPresent()) {
+                System.out.println("Informe o título da música: ");
+                var nomeMusica = leitura.nextLine();
+                cadastrarNaFila(() -> filaCadastros.cadastrarMusica(nomeArtista.get(), nomeMusica), "Música");
+            } else {
+                System.out.println("Artista não encontrado!");
+                sugerirArtistas(nome);
+            }
+            return;
+        }
+
         // Verifica se encontrou o artista
         if (artista.isPresent()) {
             System.out.println("Informe o título da música: ");
@@ -210,19 +285,33 @@ public class Principal {
             // artista.get() obtém o objeto Artista do Optional
             Musica musica = new Musica(nomeMusica, artista.get());
             
-            // Adiciona a música na lista de músicas do artista
-            artista.get().getMusicas().add(musica);
-            
-            // Salva o artista no banco
-            // Devido ao cascade = CascadeType.ALL, a música é salva automaticamente!
+            // Salva apenas a música (o artista não é regravado)
             // SQL gerado:
             // INSERT INTO musicas (titulo, artista_id) VALUES (?, ?)
-            artistaRepository.save(artista.get());
+            musicaRepository.save(musica);
             
             System.out.println("Música cadastrada com sucesso!");
         } else {
             // Artista não encontrado no banco
             System.out.println("Artista não encontrado!");
+            sugerirArtistas(nome);
+        }
+    }
+
+    /**
+     * Coloca um cadastro na fila e exibe a confirmação (ou o motivo da recusa).
+     *
+     * @param cadastro - chamada à FilaCadastros; retorna o número de sequência
+     * @param descricao - "Artista" ou "Música", para a mensagem
+     */
+    private void cadastrarNaFila(LongSupplier cadastro, String descricao) {
+        try {
+            long sequencia = cadastro.getAsLong();
+            System.out.println(descricao + " recebido(a) com sucesso! (cadastro nº " + sequencia
+                    + ", será gravado no banco em instantes)");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // Nome duplicado, campo vazio ou fila cheia
+            System.out.println("\nERRO: " + e.getMessage() + "\n");
         }
     }
 
@@ -248,6 +337,15 @@ public class Principal {
      *   - Formato: "Música: [titulo] - Artista: [nome]"
      */
     private void listarMusicas() {
+        // Com o catálogo em memória ativo, lista sem consultar o banco
+        if (catalogo.isAtivo()) {
+            CatalogoEmMemoria.Instantaneo instantaneo = catalogo.instantaneo();
+            for (int artista = 0; artista < instantaneo.quantidadeArtistas(); artista++) {
+                exibirMusicasDoCatalogo(instantaneo, artista);
+            }
+            return;
+        }
+
         // Busca todas as músicas do banco
         List<Musica> musicas = musicaRepository.findAll();
         
@@ -281,6 +379,19 @@ public class Principal {
     private void buscarMusicasPorArtista() {
         System.out.println("Buscar músicas de que artista? ");
         var nome = leitura.nextLine();
+
+        // Com o catálogo em memória ativo, busca sem consultar o banco
+        if (catalogo.isAtivo()) {
+            CatalogoEmMemoria.Instantaneo instantaneo = catalogo.instantaneo();
+            int indice = instantaneo.buscarArtistaPorNome(nome.toLowerCase(Locale.ROOT));
+            if (indice >= 0) {
+                exibirMusicasDoCatalogo(instantaneo, indice);
+            } else {
+                System.out.println("Artista não encontrado!");
+                sugerirArtistas(nome);
+            }
+            return;
+        }
         
         // Busca o artista no banco (busca parcial, ignora maiúsculas)
         Optional<Artista> artista = artistaRepository.findByNomeContainingIgnoreCase(nome);
@@ -296,6 +407,28 @@ public class Principal {
         } else {
             // Artista não encontrado
             System.out.println("Artista não encontrado!");
+            sugerirArtistas(nome);
+        }
+    }
+    
+    /**
+     * Quando o artista digitado não é encontrado, sugere nomes que começam com o mesmo texto.
+     * As sugestões vêm da árvore de prefixos em memória (não consulta o banco).
+     */
+    private void sugerirArtistas(String nome) {
+        List<String> sugestoes = autocompletar.sugerirArtistas(nome, 5);
+        if (!sugestoes.isEmpty()) {
+            System.out.println("Você quis dizer: " + String.join(", ", sugestoes) + "?");
+        }
+    }
+
+    /**
+     * Exibe as músicas de um artista do catálogo em memória,
+     * no mesmo formato do toString() da classe Musica.
+     */
+    private void exibirMusicasDoCatalogo(CatalogoEmMemoria.Instantaneo instantaneo, int artista) {
+        for (int m = instantaneo.inicioMusicas(artista); m < instantaneo.fimMusicas(artista); m++) {
+            System.out.println("Música: " + instantaneo.titulo(m) + " - Artista: " + instantaneo.nome(artista));
         }
     }
     
@@ -340,4 +473,61 @@ public class Principal {
         }
     }
 
+    /**
+     * Busca textual em artistas e músicas, ordenada por relevância.
+     * 
+     * DIFERENÇA em relação às buscas anteriores:
+     * - Usa o índice Lucene (Hibernate Search), não o banco de dados
+     * - Tolera erros de digitação ("madona" encontra "Madonna")
+     * - Combina artista e título na mesma busca ("madonna prayer")
+     * - Os resultados mais parecidos com o texto aparecem primeiro
+     */
+    private void buscaTextual() {
+        System.out.println("O que você procura? (artista, música ou os dois)");
+        var texto = leitura.nextLine();
+
+        List<BuscaTextualService.ArtistaEncontrado> artistas = buscaTextual.buscarArtistas(texto, 5);
+        List<BuscaTextualService.MusicaEncontrada> musicas = buscaTextual.buscarMusicas(texto, 20);
+
+        if (artistas.isEmpty() && musicas.isEmpty()) {
+            System.out.println("Nada encontrado!");
+        } else {
+            artistas.forEach(System.out::println);
+            musicas.forEach(System.out::println);
+        }
+    }
+
+    /**
+     * Pesquisa dados de um artista na API pública do TheAudioDB (gênero, país, biografia...).
+     * 
+     * Se a API estiver fora do ar ou lenta, a ConsultaAPI responde na hora
+     * com uma mensagem, em vez de travar o menu esperando o timeout.
+     */
+    private void pesquisarDadosDoArtista() {
+        System.out.println("Pesquisar dados sobre qual artista?");
+        var nome = leitura.nextLine();
+        System.out.println(ConsultaAPI.obterInformacao(nome));
+    }
+
+    /**
+     * Exibe as 10 músicas mais tocadas hoje e nos últimos 7 dias.
+     * 
+     * O ranking vem de contadores diários já somados (um registro por música por dia),
+     * não da contagem de cada reprodução: a consulta continua rápida com milhões de reproduções.
+     */
+    private void exibirMaisTocadas() {
+        if (!reproducoes.isAtivo()) {
+            System.out.println("Registro de reproduções desativado (screensound.reproducoes.enabled=false)");
+            return;
+        }
+        try {
+            for (ReproducoesService.Periodo periodo : ReproducoesService.Periodo.values()) {
+                System.out.println(periodo == ReproducoesService.Periodo.DIA ? "\n*** Hoje ***" : "\n*** Semana ***");
+                reproducoes.maisTocadas(periodo, LocalDate.now(), 10).forEach(System.out::println);
+            }
+        } catch (SQLException e) {
+            System.out.println("Erro ao consultar o ranking: " + e.getMessage());
+        }
+    }
+
 }
@@ -0,0 +1,31 @@
+package br.com.alura.screensound.repository;
+
+import br.com.alura.screensound.model.Album;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Repository para a entidade Album.
+ */
+public interface AlbumRepository extends JpaRepository<Album, Long> {
+
+    /**
+     * Busca um álbum do artista pelo título (sem diferenciar maiúsculas/minúsculas).
+     * 
+     * SQL gerado: SELECT ... FROM albuns WHERE artista_id = ? AND UPPER(titulo) = UPPER(?)
+     */
+    Optional<Album> findByArtistaIdAndTituloIgnoreCase(Long artistaId, String titulo);
+
+    /**
+     * Exclui os álbuns dos artistas informados com UM comando DELETE.
+     * As músicas dos álbuns precisam ser excluídas antes.
+     * 
+     * @return quantidade de álbuns excluídos
+     */
+    @Modifying
+    @Query("DELETE FROM Album a WHERE a.artista.id IN :artistaIds")
+    int excluirPorArtistas(Collection<Long> artistaIds);
+}
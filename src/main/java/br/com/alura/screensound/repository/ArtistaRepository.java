@@ -2,10 +2,15 @@ package br.com.alura.screensound.repository;
 
 import br.com.alura.screensound.model.Artista;
 import br.com.alura.screensound.model.Musica;
+import br.com.alura.screensound.model.TipoArtista;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository (Repositório) para a entidade Artista.
@@ -64,6 +69,28 @@ public interface ArtistaRepository extends JpaRepository<Artista, Long> {
      * @return Optional contendo o artista encontrado, ou vazio se não encontrar
      */
     Optional<Artista> findByNomeContainingIgnoreCase(String nome);
+
+    /**
+     * Busca artista pelo nome EXATO (ignorando maiúsculas/minúsculas).
+     * 
+     * Diferença para findByNomeContainingIgnoreCase:
+     * - Aqui não há busca parcial: "mad" NÃO encontra "Madonna"
+     * - Usado pelo modo lote (importação), onde o nome vem completo do arquivo
+     * 
+     * SQL gerado automaticamente:
+     * SELECT * FROM artistas WHERE UPPER(nome) = UPPER(?)
+     * 
+     * @param nome - nome completo do artista
+     * @return Optional contendo o artista, ou vazio se não existir
+     */
+    Optional<Artista> findByNomeIgnoreCase(String nome);
+
+    /**
+     * Artistas ainda não consultados no TheAudioDB (enriquecidoEm nulo), em ordem de cadastro.
+     * 
+     * @param pagina - quantidade máxima (ex: PageRequest.of(0, 25))
+     */
+    List<Artista> findByEnriquecidoEmIsNullOrderById(Pageable pagina);
     
     /**
      * Método customizado com @Query para buscar músicas por nome do artista.
@@ -112,6 +139,75 @@ public interface ArtistaRepository extends JpaRepository<Artista, Long> {
     @Query("SELECT m FROM Artista a JOIN a.musicas m WHERE a.nome ILIKE %:nome%")
     List<Musica> buscaMusicasPorArtista(String nome);
     
+    /**
+     * Carrega o catálogo inteiro como linhas simples (sem criar entidades).
+     * 
+     * Cada linha é um Object[] com: [id do artista, nome, tipo, id da música, título]
+     * - Artistas sem músicas aparecem uma vez, com id e título da música nulos (LEFT JOIN)
+     * - Ordenado por artista e depois por música
+     * 
+     * Por que Stream e não List?
+     * - As linhas são lidas aos poucos do banco, sem montar uma lista gigante na memória
+     * - Precisa ser usado dentro de uma transação e fechado depois (try-with-resources)
+     * 
+     * Usado pelo CatalogoEmMemoria para montar o modelo de leitura na inicialização.
+     */
+    @Query("SELECT a.id, a.nome, a.tipo, m.id, m.titulo FROM Artista a LEFT JOIN a.musicas m ORDER BY a.id, m.id")
+    Stream<Object[]> carregarCatalogo();
+
+    /**
+     * Mesma consulta de carregarCatalogo(), mas apenas para os artistas informados.
+     * Usado para recarregar somente os artistas alterados.
+     * 
+     * @param ids - ids dos artistas a recarregar
+     */
+    @Query("SELECT a.id, a.nome, a.tipo, m.id, m.titulo FROM Artista a LEFT JOIN a.musicas m WHERE a.id IN :ids ORDER BY a.id, m.id")
+    List<Object[]> carregarCatalogo(Collection<Long> ids);
+
+    /**
+     * Conta as músicas de cada artista, sem carregar as músicas.
+     * 
+     * Cada linha é um Object[] com: [id do artista, nome, quantidade de músicas]
+     * - GROUP BY: agrupa as linhas do JOIN por artista
+     * - COUNT(m): conta as músicas de cada grupo (0 para artistas sem músicas, por causa do LEFT JOIN)
+     * 
+     * Usado pelo autocompletar (artistas com mais músicas aparecem primeiro).
+     */
+    @Query("SELECT a.id, a.nome, COUNT(m) FROM Artista a LEFT JOIN a.musicas m GROUP BY a.id, a.nome")
+    List<Object[]> contarMusicasPorArtista();
+
+    /**
+     * Mesma contagem de contarMusicasPorArtista(), apenas para os artistas informados.
+     */
+    @Query("SELECT a.id, a.nome, COUNT(m) FROM Artista a LEFT JOIN a.musicas m WHERE a.id IN :ids GROUP BY a.id, a.nome")
+    List<Object[]> contarMusicasPorArtista(Collection<Long> ids);
+
+    /**
+     * Ids dos artistas de um tipo (sem carregar as entidades).
+     * Usado pela exclusão em massa (ExclusaoCatalogoService).
+     */
+    @Query("SELECT a.id FROM Artista a WHERE a.tipo = :tipo ORDER BY a.id")
+    List<Long> listarIdsPorTipo(TipoArtista tipo);
+
+    /**
+     * Exclui os artistas informados com UM comando DELETE, sem carregá-los.
+     * 
+     * @Modifying - indica que a @Query altera dados (DELETE/UPDATE) em vez de consultar
+     * 
+     * Diferente de deleteById():
+     * - deleteById() carrega o artista e, pelo CascadeType.ALL, todas as suas músicas,
+     *   e executa um DELETE por música
+     * - Aqui NÃO há cascata: músicas e álbuns do artista precisam ser excluídos antes
+     * - Os Entity Listeners (CatalogoEntityListener) não são chamados
+     * 
+     * SQL gerado: DELETE FROM artistas WHERE id IN (?, ?, ...)
+     * 
+     * @return quantidade de artistas excluídos
+     */
+    @Modifying
+    @Query("DELETE FROM Artista a WHERE a.id IN :ids")
+    int excluirPorIds(Collection<Long> ids);
+
     /**
      * Métodos herdados do JpaRepository (não precisam ser declarados):
      * 
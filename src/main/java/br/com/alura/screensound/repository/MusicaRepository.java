@@ -2,8 +2,18 @@ package br.com.alura.screensound.repository;
 
 import br.com.alura.screensound.model.Artista;
 import br.com.alura.screensound.model.Musica;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository (Repositório) para a entidade Musica.
@@ -16,8 +26,12 @@ import java.util.List;
  * JpaRepository<Musica, Long>:
  * - Musica: Tipo da entidade gerenciada
  * - Long: Tipo da chave primária (ID)
+ * 
+ * JpaSpecificationExecutor<Musica>:
+ * - Acrescenta findAll(Specification) e count(Specification), para filtros combinados
+ *   em tempo de execução (ver MusicaSpecs)
  */
-public interface MusicaRepository extends JpaRepository<Musica, Long> {
+public interface MusicaRepository extends JpaRepository<Musica, Long>, JpaSpecificationExecutor<Musica> {
     
     /**
      * Método customizado para buscar todas as músicas de um artista específico.
@@ -51,6 +65,93 @@ public interface MusicaRepository extends JpaRepository<Musica, Long> {
      */
     List<Musica> findByArtista(Artista artista);
     
+    /**
+     * Conta quantas músicas existem com cada título.
+     * 
+     * Cada linha é um Object[] com: [título, quantidade]
+     * Usado pelo autocompletar: títulos gravados por mais artistas aparecem primeiro.
+     */
+    @Query("SELECT m.titulo, COUNT(m) FROM Musica m GROUP BY m.titulo")
+    List<Object[]> contarPorTitulo();
+
+    /**
+     * Busca uma música pelo id do artista e pelo título (sem diferenciar maiúsculas/minúsculas).
+     * 
+     * SQL gerado: SELECT ... FROM musicas WHERE artista_id = ? AND UPPER(titulo) = UPPER(?) LIMIT 1
+     */
+    Optional<Musica> findFirstByArtistaIdAndTituloIgnoreCase(Long artistaId, String titulo);
+
+    /**
+     * Ids de todas as músicas (sem carregar as entidades).
+     * Usado para gerar reproduções de teste no modo lote.
+     */
+    @Query("SELECT m.id FROM Musica m")
+    List<Long> listarIds();
+
+    /**
+     * Título e nome do artista de todas as músicas, lidos aos poucos do banco (sem criar entidades).
+     * 
+     * Cada linha é um Object[] com: [título, nome do artista]
+     * 
+     * Por que o fetchSize?
+     * - Sem ele, o driver do PostgreSQL traz o resultado inteiro para a memória antes da primeira linha
+     * - Com ele (e dentro de uma transação), traz 1000 linhas por vez
+     * 
+     * Precisa ser usado dentro de uma transação e fechado depois (try-with-resources).
+     * Usado pelo comando list do modo lote.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT m.titulo, a.nome FROM Musica m JOIN m.artista a ORDER BY m.id")
+    Stream<Object[]> listarTitulosEArtistas();
+
+    /**
+     * Conta as músicas de um artista por álbum, SEM carregar as músicas.
+     * 
+     * Cada linha é um Object[] com: [id do álbum, quantidade]
+     * A linha com id do álbum null é a quantidade de músicas sem álbum (singles).
+     * 
+     * SQL gerado: SELECT album_id, COUNT(*) FROM musicas WHERE artista_id = ? GROUP BY album_id
+     */
+    @Query("SELECT m.album.id, COUNT(m) FROM Musica m WHERE m.artista.id = :artistaId GROUP BY m.album.id")
+    List<Object[]> contarPorAlbum(Long artistaId);
+    
+    /**
+     * Próximas músicas dos artistas informados, sem carregar as entidades.
+     * 
+     * Cada linha é um Object[] com: [id da música, id do artista, título]
+     * Usado pela exclusão em massa: lê um lote, exclui, e lê de novo a primeira página.
+     * 
+     * @param pagina - tamanho do lote (ex: PageRequest.of(0, 1000))
+     */
+    @Query("SELECT m.id, m.artista.id, m.titulo FROM Musica m WHERE m.artista.id IN :artistaIds ORDER BY m.id")
+    List<Object[]> listarPorArtistas(Collection<Long> artistaIds, Pageable pagina);
+
+    /**
+     * Id do artista e título de cada música informada (as que não existem não aparecem).
+     * 
+     * Cada linha é um Object[] com: [id da música, id do artista, título]
+     */
+    @Query("SELECT m.id, m.artista.id, m.titulo FROM Musica m WHERE m.id IN :ids")
+    List<Object[]> listarArtistas(Collection<Long> ids);
+
+    /**
+     * Exclui as músicas informadas com UM comando DELETE, sem carregá-las.
+     * 
+     * Por que também os ids dos artistas?
+     * - Se a tabela musicas for particionada por artista_id (ver db/particionar-musicas.sql),
+     *   o PostgreSQL só procura as músicas nas partições desses artistas
+     * 
+     * Os itens de playlist das músicas precisam ser excluídos antes
+     * (PlaylistItemRepository.excluirPorMusicas).
+     * 
+     * SQL gerado: DELETE FROM musicas WHERE id IN (...) AND artista_id IN (...)
+     * 
+     * @return quantidade de músicas excluídas
+     */
+    @Modifying
+    @Query("DELETE FROM Musica m WHERE m.id IN :ids AND m.artista.id IN :artistaIds")
+    int excluirPorIds(Collection<Long> ids, Collection<Long> artistaIds);
+
     /**
      * Métodos herdados do JpaRepository (prontos para usar):
      * 
@@ -0,0 +1,110 @@
+package br.com.alura.screensound.repository;
+
+import br.com.alura.screensound.model.Artista;
+import br.com.alura.screensound.model.Musica;
+import br.com.alura.screensound.model.TipoArtista;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Locale;
+
+/**
+ * Filtros de músicas que podem ser combinados livremente (Specification do Spring Data JPA).
+ *
+ * O que é uma Specification?
+ * - Um pedaço de WHERE montado com a Criteria API, em vez de um método com nome fixo
+ * - Combinação: Specification.where(tipo(BANDA)).and(tituloContem("love"))
+ * - Filtro não informado (null ou vazio) devolve null, e o Spring simplesmente o ignora
+ *
+ * Todos os filtros de artista usam o MESMO JOIN com artistas (ver artista()),
+ * então combinar vários filtros não multiplica os JOINs.
+ */
+public final class MusicaSpecs {
+
+    private MusicaSpecs() {
+    }
+
+    /**
+     * SQL: a.tipo = ?
+     */
+    public static Specification<Musica> tipoArtista(TipoArtista tipo) {
+        if (tipo == null) {
+            return null;
+        }
+        return (musica, consulta, cb) -> cb.equal(artista(musica).get("tipo"), tipo);
+    }
+
+    /**
+     * Nome do artista começando com o prefixo, sem diferenciar maiúsculas/minúsculas.
+     * SQL: lower(a.nome) LIKE 'prefixo%' (usa o índice artistas_nome_prefixo)
+     */
+    public static Specification<Musica> nomeArtistaComecaCom(String prefixo) {
+        if (prefixo == null || prefixo.isBlank()) {
+            return null;
+        }
+        return (musica, consulta, cb) -> like(cb, artista(musica).get("nome"), escapar(prefixo) + "%");
+    }
+
+    /**
+     * Título contendo o trecho, sem diferenciar maiúsculas/minúsculas.
+     * SQL: lower(m.titulo) LIKE '%trecho%'
+     */
+    public static Specification<Musica> tituloContem(String trecho) {
+        if (trecho == null || trecho.isBlank()) {
+            return null;
+        }
+        return (musica, consulta, cb) -> like(cb, musica.get("titulo"), "%" + escapar(trecho) + "%");
+    }
+
+    /**
+     * Gênero do artista (dado do TheAudioDB), sem diferenciar maiúsculas/minúsculas.
+     * SQL: lower(a.genero) = 'rock' (usa o índice artistas_genero_lower)
+     */
+    public static Specification<Musica> generoArtista(String genero) {
+        if (genero == null || genero.isBlank()) {
+            return null;
+        }
+        return (musica, consulta, cb) -> igual(cb, artista(musica).get("genero"), genero);
+    }
+
+    /**
+     * País do artista (dado do TheAudioDB), sem diferenciar maiúsculas/minúsculas.
+     * SQL: lower(a.pais) = 'brazil' (usa o índice artistas_pais_lower)
+     */
+    public static Specification<Musica> paisArtista(String pais) {
+        if (pais == null || pais.isBlank()) {
+            return null;
+        }
+        return (musica, consulta, cb) -> igual(cb, artista(musica).get("pais"), pais);
+    }
+
+    /**
+     * JOIN com o artista da música, criado uma única vez por consulta.
+     * Também usado por quem monta a consulta para selecionar colunas do artista.
+     */
+    @SuppressWarnings("unchecked")
+    public static Join<Musica, Artista> artista(From<?, Musica> musica) {
+        return musica.getJoins().stream()
+                .filter(join -> join.getAttribute().getName().equals("artista"))
+                .map(join -> (Join<Musica, Artista>) join)
+                .findFirst()
+                .orElseGet(() -> musica.join("artista"));
+    }
+
+    private static Predicate like(CriteriaBuilder cb, Expression<String> campo, String padrao) {
+        return cb.like(cb.lower(campo), padrao.toLowerCase(Locale.ROOT), '\\');
+    }
+
+    private static Predicate igual(CriteriaBuilder cb, Expression<String> campo, String valor) {
+        return cb.equal(cb.lower(campo), valor.trim().toLowerCase(Locale.ROOT));
+    }
+
+    // % e _ digitados pelo usuário são texto, não curingas
+    private static String escapar(String texto) {
+        return texto.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
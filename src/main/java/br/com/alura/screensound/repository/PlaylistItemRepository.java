@@ -0,0 +1,70 @@
+package br.com.alura.screensound.repository;
+
+import br.com.alura.screensound.model.PlaylistItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository para os itens de playlist.
+ * 
+ * Todas as consultas usam o índice (playlist_id, posicao): buscar vizinhos, a primeira/última
+ * posição ou uma página de itens lê só as linhas necessárias, mesmo em playlists enormes.
+ * A exceção é excluirPorMusicas(), que usa o índice playlist_itens_musica.
+ */
+public interface PlaylistItemRepository extends JpaRepository<PlaylistItem, Long> {
+
+    /**
+     * Página de itens depois de uma posição (paginação por chave, "keyset pagination").
+     * 
+     * Por que não usar OFFSET (página 1, 2, 3...)?
+     * - OFFSET 5000 obriga o banco a ler e descartar 5000 linhas antes da página
+     * - Aqui o banco vai direto para a posição informada pelo índice: toda página custa o mesmo
+     * - Itens inseridos/movidos enquanto o usuário navega não fazem a página "pular" itens
+     * 
+     * Cada linha é um Object[] com: [id do item, posição, id da música, título, nome do artista]
+     * 
+     * @param depoisDe - última posição da página anterior ("" para a primeira página)
+     * @param pagina - use PageRequest.of(0, tamanho): só o tamanho é usado (LIMIT)
+     */
+    @Query("SELECT i.id, i.posicao, m.id, m.titulo, a.nome FROM PlaylistItem i "
+            + "JOIN i.musica m JOIN m.artista a "
+            + "WHERE i.playlist.id = :playlistId AND i.posicao > :depoisDe ORDER BY i.posicao")
+    List<Object[]> pagina(Long playlistId, String depoisDe, Pageable pagina);
+
+    /**
+     * Posição do primeiro item (null se a playlist estiver vazia).
+     */
+    @Query("SELECT MIN(i.posicao) FROM PlaylistItem i WHERE i.playlist.id = :playlistId")
+    String primeiraPosicao(Long playlistId);
+
+    /**
+     * Posição do último item (null se a playlist estiver vazia).
+     */
+    @Query("SELECT MAX(i.posicao) FROM PlaylistItem i WHERE i.playlist.id = :playlistId")
+    String ultimaPosicao(Long playlistId);
+
+    /**
+     * Posição do item logo depois da posição informada (null se não houver).
+     */
+    @Query("SELECT MIN(i.posicao) FROM PlaylistItem i WHERE i.playlist.id = :playlistId AND i.posicao > :posicao")
+    String proximaPosicao(Long playlistId, String posicao);
+
+    /**
+     * Todos os itens da playlist em ordem (usado apenas no rebalanceamento).
+     */
+    List<PlaylistItem> findByPlaylistIdOrderByPosicaoAscIdAsc(Long playlistId);
+
+    /**
+     * Exclui os itens (de qualquer playlist) que apontam para as músicas informadas,
+     * com UM comando DELETE. Usado antes de excluir as músicas em massa.
+     * 
+     * @return quantidade de itens excluídos
+     */
+    @Modifying
+    @Query("DELETE FROM PlaylistItem i WHERE i.musica.id IN :musicaIds")
+    int excluirPorMusicas(Collection<Long> musicaIds);
+}
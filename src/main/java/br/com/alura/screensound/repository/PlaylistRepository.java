@@ -0,0 +1,32 @@
+package br.com.alura.screensound.repository;
+
+import br.com.alura.screensound.model.Playlist;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import java.util.Optional;
+
+/**
+ * Repository para a entidade Playlist.
+ */
+public interface PlaylistRepository extends JpaRepository<Playlist, Long> {
+
+    /**
+     * Busca uma playlist pelo nome exato (sem diferenciar maiúsculas/minúsculas).
+     */
+    Optional<Playlist> findByNomeIgnoreCase(String nome);
+
+    /**
+     * Busca a playlist e BLOQUEIA a linha até o fim da transação (SELECT ... FOR UPDATE).
+     * 
+     * Por que bloquear?
+     * - Duas pessoas inserindo no mesmo lugar da playlist ao mesmo tempo leriam os mesmos
+     *   vizinhos e gerariam a MESMA chave de ordenação
+     * - Com o bloqueio, as alterações de uma mesma playlist acontecem uma de cada vez
+     *   (playlists diferentes continuam sendo alteradas em paralelo)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Playlist p WHERE p.id = :id")
+    Optional<Playlist> travar(Long id);
+}
@@ -0,0 +1,255 @@
+package br.com.alura.screensound.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Árvore de prefixos (trie) para autocompletar textos, ranqueados por popularidade.
+ *
+ * Como funciona?
+ * - Cada caractere do texto é um nível da árvore: "abba" fica em a -> b -> b -> a
+ * - Cada nó guarda as MAX_SUGESTOES sugestões mais populares de tudo que está abaixo dele
+ * - Sugerir é só descer pelos caracteres do prefixo e devolver a lista já pronta do nó:
+ *   o custo depende do tamanho do prefixo, não do tamanho do catálogo
+ *
+ * Textos são normalizados (minúsculas e sem acentos): "chitao" encontra "Chitãozinho".
+ * Variantes que normalizam igual ("Beyoncé"/"Beyonce", "ABBA"/"Abba") viram UMA sugestão:
+ * a popularidade é a soma das variantes e o texto exibido é o da variante mais popular.
+ *
+ * Esta classe NÃO é thread-safe; o AutocompletarService controla o acesso.
+ */
+class ArvorePrefixos {
+
+    static final int MAX_SUGESTOES = 10;
+
+    /**
+     * Uma sugestão: o texto original (como foi cadastrado) e sua popularidade.
+     */
+    record Sugestao(String texto, long popularidade) {
+    }
+
+    // Maior popularidade primeiro; empate em ordem alfabética
+    private static final Comparator<Sugestao> RANKING = Comparator
+            .comparingLong(Sugestao::popularidade).reversed()
+            .thenComparing(Sugestao::texto);
+
+    private static final Sugestao[] NENHUMA = new Sugestao[0];
+
+    /**
+     * Nó da árvore. Os filhos ficam em arrays paralelos ordenados pelo caractere
+     * (mais compacto que um Map por nó).
+     */
+    private static final class No {
+        private char[] caracteres = new char[0];
+        private No[] filhos = new No[0];
+        private Map<String, Long> variantes;    // textos que terminam exatamente neste nó -> popularidade
+        private Sugestao terminal;              // as variantes somadas (null se não houver nenhuma)
+        private Sugestao[] melhores = NENHUMA;  // top-N deste nó e de todos os descendentes
+
+        No filho(char c) {
+            int i = Arrays.binarySearch(caracteres, c);
+            return i >= 0 ? filhos[i] : null;
+        }
+
+        No filhoOuNovo(char c) {
+            int i = Arrays.binarySearch(caracteres, c);
+            if (i >= 0) {
+                return filhos[i];
+            }
+            int posicao = -i - 1;
+            No novo = new No();
+            caracteres = inserir(caracteres, posicao, c);
+            filhos = inserir(filhos, posicao, novo);
+            return novo;
+        }
+
+        void definirVariante(String texto, long popularidade) {
+            if (popularidade > 0) {
+                if (variantes == null) {
+                    variantes = new TreeMap<>();
+                }
+                variantes.put(texto, popularidade);
+            } else if (variantes != null) {
+                variantes.remove(texto);
+            }
+            if (variantes == null || variantes.isEmpty()) {
+                variantes = null;
+                terminal = null;
+                return;
+            }
+            // Texto exibido: a variante mais popular (empate: a primeira em ordem alfabética)
+            String exibido = null;
+            long maior = 0;
+            long soma = 0;
+            for (Map.Entry<String, Long> variante : variantes.entrySet()) {
+                soma += variante.getValue();
+                if (variante.getValue() > maior) {
+                    maior = variante.getValue();
+                    exibido = variante.getKey();
+                }
+            }
+            terminal = new Sugestao(exibido, soma);
+        }
+
+        int quantidadeVariantes() {
+            return variantes == null ? 0 : variantes.size();
+        }
+
+        long popularidade(String texto) {
+            return variantes == null ? 0 : variantes.getOrDefault(texto, 0L);
+        }
+
+        void recalcularMelhores() {
+            List<Sugestao> candidatas = new ArrayList<>();
+            if (terminal != null) {
+                candidatas.add(terminal);
+            }
+            for (No filho : filhos) {
+                candidatas.addAll(Arrays.asList(filho.melhores));
+            }
+            candidatas.sort(RANKING);
+            melhores = candidatas.subList(0, Math.min(MAX_SUGESTOES, candidatas.size())).toArray(NENHUMA);
+        }
+    }
+
+    private No raiz = new No();
+    private int quantidade;                     // textos gravados (cada variante conta)
+
+    /**
+     * Inclui ou atualiza um texto (exatamente como escrito) com a popularidade informada.
+     * Popularidade <= 0 remove o texto; as outras variantes do mesmo texto normalizado continuam.
+     */
+    void definir(String texto, long popularidade) {
+        No[] caminho = gravarTerminal(texto, popularidade);
+        // Recalcula os rankings apenas no caminho alterado, de baixo para cima
+        for (int i = caminho.length - 1; i >= 0; i--) {
+            caminho[i].recalcularMelhores();
+        }
+    }
+
+    /**
+     * Soma a diferença à popularidade atual do texto (negativa para subtrair).
+     * Ex: somar("Love", -1) quando uma das músicas chamadas "Love" é excluída.
+     */
+    void somar(String texto, long diferenca) {
+        String chave = normalizar(texto);
+        No atual = raiz;
+        for (int i = 0; i < chave.length() && atual != null; i++) {
+            atual = atual.filho(chave.charAt(i));
+        }
+        long popularidade = (atual == null ? 0 : atual.popularidade(texto)) + diferenca;
+        if (atual == null && popularidade <= 0) {
+            return;  // não existe e continuaria não existindo
+        }
+        definir(texto, popularidade);
+    }
+
+    /**
+     * Carga inicial: inclui todos os textos e calcula os rankings uma única vez no final
+     * (bem mais rápido que chamar definir() para cada texto).
+     */
+    void carregar(Iterable<Sugestao> sugestoes) {
+        limpar();
+        for (Sugestao sugestao : sugestoes) {
+            gravarTerminal(sugestao.texto(), sugestao.popularidade());
+        }
+        recalcularTudo(raiz);
+    }
+
+    private No[] gravarTerminal(String texto, long popularidade) {
+        String chave = normalizar(texto);
+        if (chave.isEmpty()) {
+            return new No[0];
+        }
+        No[] caminho = new No[chave.length() + 1];
+        caminho[0] = raiz;
+        No atual = raiz;
+        for (int i = 0; i < chave.length(); i++) {
+            atual = atual.filhoOuNovo(chave.charAt(i));
+            caminho[i + 1] = atual;
+        }
+
+        int antes = atual.quantidadeVariantes();
+        atual.definirVariante(texto, popularidade);
+        quantidade += atual.quantidadeVariantes() - antes;
+        return caminho;
+    }
+
+    // Pós-ordem: primeiro os filhos, depois o próprio nó
+    private static void recalcularTudo(No no) {
+        for (No filho : no.filhos) {
+            recalcularTudo(filho);
+        }
+        no.recalcularMelhores();
+    }
+
+    /**
+     * Remove um texto da árvore (só esta variante; a sugestão some com a última variante).
+     */
+    void remover(String texto) {
+        definir(texto, 0);
+    }
+
+    /**
+     * As sugestões mais populares que começam com o prefixo.
+     * Não percorre a árvore abaixo do prefixo: a lista já está pronta no nó.
+     */
+    List<Sugestao> sugerir(String prefixo, int limite) {
+        String chave = normalizar(prefixo);
+        No atual = raiz;
+        for (int i = 0; i < chave.length() && atual != null; i++) {
+            atual = atual.filho(chave.charAt(i));
+        }
+        if (atual == null) {
+            return List.of();
+        }
+        Sugestao[] melhores = atual.melhores;
+        return Arrays.asList(melhores).subList(0, Math.min(limite, melhores.length));
+    }
+
+    /**
+     * Remove todos os textos.
+     */
+    void limpar() {
+        raiz = new No();
+        quantidade = 0;
+    }
+
+    int quantidade() {
+        return quantidade;
+    }
+
+    /**
+     * Minúsculas e sem acentos: "Chitãozinho" -> "chitaozinho".
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcentos = Normalizer.normalize(texto.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+        return semAcentos.toLowerCase(Locale.ROOT);
+    }
+
+    private static char[] inserir(char[] array, int posicao, char valor) {
+        char[] novo = new char[array.length + 1];
+        System.arraycopy(array, 0, novo, 0, posicao);
+        novo[posicao] = valor;
+        System.arraycopy(array, posicao, novo, posicao + 1, array.length - posicao);
+        return novo;
+    }
+
+    private static No[] inserir(No[] array, int posicao, No valor) {
+        No[] novo = new No[array.length + 1];
+        System.arraycopy(array, 0, novo, 0, posicao);
+        novo[posicao] = valor;
+        System.arraycopy(array, posicao, novo, posicao + 1, array.length - posicao);
+        return novo;
+    }
+}
@@ -0,0 +1,268 @@
+package br.com.alura.screensound.service;
+
+import br.com.alura.screensound.repository.ArtistaRepository;
+import br.com.alura.screensound.repository.MusicaRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocompletar (type-ahead) de nomes de artistas e títulos de músicas.
+ *
+ * Ativação: screensound.autocompletar.enabled=true
+ *
+ * Como funciona?
+ * - Na inicialização, nomes e títulos são carregados em duas árvores de prefixos (ArvorePrefixos)
+ * - Popularidade de um artista = quantidade de músicas; de um título = quantas músicas têm esse título
+ * - Cada sugestão é respondida direto da árvore, em microssegundos, sem consultar o banco
+ *
+ * Como as árvores são atualizadas?
+ * - A cada CatalogoAlterado (após o commit), os artistas afetados e os títulos incluídos/excluídos
+ *   ficam pendentes
+ * - Uma thread própria aplica as pendências logo depois (ATRASO_MS junta as de uma rajada):
+ *   só os artistas pendentes são consultados no banco; os títulos não: cada música incluída soma 1
+ *   à contagem do título e cada música excluída subtrai 1 (o evento traz os títulos)
+ * - A sugestão nunca espera por essa atualização: lê as árvores como estiverem
+ */
+@Service
+public class AutocompletarService {
+
+    private static final Logger log = LoggerFactory.getLogger(AutocompletarService.class);
+
+    // Espera antes de aplicar as pendências, para juntar as de uma rajada de gravações
+    private static final long ATRASO_MS = 50;
+    private static final long ESPERA_FALHA_MS = 1_000;
+
+    private final ArtistaRepository artistaRepository;
+    private final MusicaRepository musicaRepository;
+    private final boolean ativo;
+
+    // Árvores e nomes atuais: leituras em paralelo, escritas exclusivas
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final ArvorePrefixos artistas = new ArvorePrefixos();
+    private final ArvorePrefixos musicas = new ArvorePrefixos();
+    private final Map<Long, String> nomesArtistas = new HashMap<>();
+
+    // Alterações ainda não aplicadas (protegidas por synchronized(pendentes))
+    private final Pendencias pendentes = new Pendencias();
+
+    private static final class Pendencias {
+        private final Set<Long> artistas = new HashSet<>();
+        private final Map<String, Long> titulos = new HashMap<>();  // título -> músicas incluídas - excluídas
+        private boolean agendada;
+    }
+
+    // Aplica as pendências e as recargas completas fora da thread de quem pede sugestões
+    private final ScheduledExecutorService atualizador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "screensound-autocompletar");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AutocompletarService(ArtistaRepository artistaRepository, MusicaRepository musicaRepository,
+                                @Value("${screensound.autocompletar.enabled:false}") boolean ativo) {
+        this.artistaRepository = artistaRepository;
+        this.musicaRepository = musicaRepository;
+        this.ativo = ativo;
+    }
+
+    @PreDestroy
+    public void parar() {
+        atualizador.shutdownNow();
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    /**
+     * Carrega as duas árvores a partir do banco (na inicialização ou após uma invalidação geral).
+     *
+     * Uma música gravada durante a carga pode ser contada na consulta e também como pendência:
+     * a contagem do título fica uma unidade acima (só muda a ordem das sugestões) até a próxima carga.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void carregar() {
+        if (!ativo) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        synchronized (pendentes) {
+            pendentes.artistas.clear();
+            pendentes.titulos.clear();
+        }
+
+        List<Object[]> contagemArtistas = artistaRepository.contarMusicasPorArtista();
+        List<Object[]> contagemTitulos = musicaRepository.contarPorTitulo();
+
+        trava.writeLock().lock();
+        try {
+            nomesArtistas.clear();
+            artistas.carregar(contagemArtistas.stream()
+                    .peek(linha -> nomesArtistas.put((Long) linha[0], (String) linha[1]))
+                    .map(linha -> new ArvorePrefixos.Sugestao((String) linha[1], popularidadeArtista(linha[2])))
+                    .toList());
+            musicas.carregar(contagemTitulos.stream()
+                    .map(linha -> new ArvorePrefixos.Sugestao((String) linha[0], (Long) linha[1]))
+                    .toList());
+        } finally {
+            trava.writeLock().unlock();
+        }
+        log.info("Autocompletar: {} artistas e {} títulos carregados em {} ms",
+                artistas.quantidade(), musicas.quantidade(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarCatalogo(CatalogoAlterado evento) {
+        if (!ativo) {
+            return;
+        }
+        synchronized (pendentes) {
+            if (evento.artistaId() != null) {
+                pendentes.artistas.add(evento.artistaId());
+            }
+            if (evento.entidade() == CatalogoAlterado.Entidade.MUSICA) {
+                long diferenca = evento.removido() ? -1 : 1;
+                for (String titulo : evento.titulos()) {
+                    pendentes.titulos.merge(titulo, diferenca, Long::sum);
+                }
+            }
+            agendar(ATRASO_MS);
+        }
+    }
+
+    /**
+     * Recarrega tudo na thread de atualização: quem publicou o evento não espera.
+     */
+    @EventListener
+    public void aoInvalidarCatalogo(CatalogoInvalidado evento) {
+        if (!ativo) {
+            return;
+        }
+        atualizador.execute(() -> {
+            try {
+                carregar();
+            } catch (RuntimeException e) {
+                log.warn("Não foi possível recarregar o autocompletar: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Nomes de artistas que começam com o prefixo, dos mais populares para os menos populares.
+     */
+    public List<String> sugerirArtistas(String prefixo, int limite) {
+        return sugerir(artistas, prefixo, limite);
+    }
+
+    /**
+     * Títulos de músicas que começam com o prefixo, dos mais populares para os menos populares.
+     */
+    public List<String> sugerirMusicas(String prefixo, int limite) {
+        return sugerir(musicas, prefixo, limite);
+    }
+
+    private List<String> sugerir(ArvorePrefixos arvore, String prefixo, int limite) {
+        if (!ativo) {
+            return List.of();
+        }
+        trava.readLock().lock();
+        try {
+            return arvore.sugerir(prefixo, limite).stream()
+                    .map(ArvorePrefixos.Sugestao::texto)
+                    .toList();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    // Chamado com synchronized(pendentes)
+    private void agendar(long atrasoMs) {
+        if (!pendentes.agendada) {
+            pendentes.agendada = true;
+            atualizador.schedule(this::aplicarPendencias, atrasoMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Consulta no banco apenas os artistas alterados, soma as diferenças dos títulos e atualiza
+     * as árvores (executado na thread de atualização).
+     */
+    private void aplicarPendencias() {
+        Set<Long> idsArtistas;
+        Map<String, Long> titulos;
+        synchronized (pendentes) {
+            pendentes.agendada = false;
+            idsArtistas = Set.copyOf(pendentes.artistas);
+            titulos = Map.copyOf(pendentes.titulos);
+            pendentes.artistas.clear();
+            pendentes.titulos.clear();
+        }
+
+        List<Object[]> contagemArtistas;
+        try {
+            contagemArtistas = idsArtistas.isEmpty() ? List.of() : artistaRepository.contarMusicasPorArtista(idsArtistas);
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível atualizar o autocompletar ({}); nova tentativa em {} ms",
+                    e.getMessage(), ESPERA_FALHA_MS);
+            synchronized (pendentes) {
+                pendentes.artistas.addAll(idsArtistas);
+                titulos.forEach((titulo, diferenca) -> pendentes.titulos.merge(titulo, diferenca, Long::sum));
+                agendar(ESPERA_FALHA_MS);
+            }
+            return;
+        }
+
+        trava.writeLock().lock();
+        try {
+            Set<Long> encontrados = new HashSet<>();
+            for (Object[] linha : contagemArtistas) {
+                Long id = (Long) linha[0];
+                String nome = (String) linha[1];
+                String nomeAnterior = nomesArtistas.put(id, nome);
+                if (nomeAnterior != null && !nomeAnterior.equals(nome)) {
+                    artistas.remover(nomeAnterior);
+                }
+                artistas.definir(nome, popularidadeArtista(linha[2]));
+                encontrados.add(id);
+            }
+            // Artistas pendentes que não existem mais no banco foram excluídos
+            for (Long id : idsArtistas) {
+                if (!encontrados.contains(id)) {
+                    String nome = nomesArtistas.remove(id);
+                    if (nome != null) {
+                        artistas.remover(nome);
+                    }
+                }
+            }
+
+            titulos.forEach((titulo, diferenca) -> {
+                if (diferenca != 0) {
+                    musicas.somar(titulo, diferenca);
+                }
+            });
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // +1 para que artistas ainda sem músicas também sejam sugeridos
+    private static long popularidadeArtista(Object quantidadeMusicas) {
+        return (Long) quantidadeMusicas + 1;
+    }
+}
@@ -0,0 +1,334 @@
+package br.com.alura.screensound.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Barramento de invalidação entre instâncias usando LISTEN/NOTIFY do PostgreSQL.
+ *
+ * Ativação: screensound.invalidacao.enabled=true
+ *
+ * Problema:
+ * - Com várias instâncias da aplicação, cada uma tem seu próprio catálogo em memória
+ * - Um cadastro feito na instância A não aparece no catálogo em memória da instância B
+ *
+ * Solução (sem servidor de cache separado):
+ * - As alterações de uma transação são juntadas (artistas e músicas afetados) e viram UM
+ *   NOTIFY no canal CANAL, enviado na própria transação, logo antes do COMMIT
+ * - Cada instância mantém uma conexão dedicada fazendo LISTEN nesse canal
+ * - Ao receber a notificação de outra instância, publica os CatalogoAlterado (remoto = true)
+ *   e os caches locais descartam os artistas afetados
+ *
+ * Por que na própria transação?
+ * - NOTIFY é transacional: o PostgreSQL só entrega a notificação se a transação fizer COMMIT
+ *   (e não entrega se ela for desfeita), então dados e notificação nunca se separam
+ * - Uma queda logo depois do COMMIT não perde a invalidação (ela já foi entregue junto)
+ * - Cadastros em lote (add-songs, fila de cadastros, exclusão em massa) mandam as
+ *   notificações uma vez por transação, e não uma por registro
+ *
+ * Formato das mensagens: instancia|tipo|valores (valores separados por vírgula), com tipo:
+ * - A: ids dos artistas alterados
+ * - I / E: títulos das músicas incluídas / excluídas, codificados com URLEncoder
+ *   (o autocompletar soma/subtrai as contagens sem consultar o banco)
+ * - *: sem valores; alterações demais para as mensagens, quem recebe recarrega tudo
+ * Cada mensagem fica abaixo do limite de 8000 bytes do NOTIFY; uma transação grande manda
+ * várias (até MAXIMO_MENSAGENS), que o PostgreSQL entrega juntas no COMMIT.
+ */
+@Component
+public class BarramentoInvalidacao {
+
+    private static final Logger log = LoggerFactory.getLogger(BarramentoInvalidacao.class);
+
+    static final String CANAL = "screensound_catalogo";
+
+    // O PostgreSQL recusa mensagens de NOTIFY com 8000 bytes ou mais
+    private static final int TAMANHO_MAXIMO_MENSAGEM = 7_999;
+    private static final int MAXIMO_MENSAGENS = 32;
+    private static final String ARTISTAS = "A";
+    private static final String INCLUIDAS = "I";
+    private static final String EXCLUIDAS = "E";
+    private static final String TUDO = "*";
+
+    // Tempo máximo de espera por notificações a cada volta do laço
+    private static final int ESPERA_MS = 1_000;
+    private static final long ESPERA_RECONEXAO_MS = 5_000;
+
+    // Identifica esta instância (para ignorar as próprias notificações)
+    private final String instancia = UUID.randomUUID().toString();
+
+    private final DataSource dataSource;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher publicador;
+    private final boolean ativo;
+    private final String url;
+    private final String usuario;
+    private final String senha;
+
+    private volatile boolean executando;
+    private Thread ouvinte;
+
+    public BarramentoInvalidacao(DataSource dataSource, EntityManager entityManager,
+                                 ApplicationEventPublisher publicador,
+                                 @Value("${screensound.invalidacao.enabled:false}") boolean ativo,
+                                 @Value("${spring.datasource.url}") String url,
+                                 @Value("${spring.datasource.username}") String usuario,
+                                 @Value("${spring.datasource.password}") String senha) {
+        this.dataSource = dataSource;
+        this.entityManager = entityManager;
+        this.publicador = publicador;
+        this.ativo = ativo;
+        this.url = url;
+        this.usuario = usuario;
+        this.senha = senha;
+    }
+
+    /**
+     * Inicia a thread que escuta o canal (thread daemon: não impede a aplicação de encerrar).
+     */
+    // condition: desligado, o evento não chega a criar o bean (inicialização preguiçosa do perfil startup)
+    @EventListener(value = ApplicationStartedEvent.class,
+            condition = "@environment.getProperty('screensound.invalidacao.enabled', T(Boolean), false)")
+    public void iniciar() {
+        if (!ativo) {
+            return;
+        }
+        executando = true;
+        ouvinte = new Thread(this::escutar, "screensound-listen");
+        ouvinte.setDaemon(true);
+        ouvinte.start();
+    }
+
+    @PreDestroy
+    public void parar() {
+        executando = false;
+        if (ouvinte != null) {
+            ouvinte.interrupt();
+        }
+    }
+
+    /**
+     * Artistas alterados e títulos incluídos/excluídos em uma transação (notificados no fim).
+     */
+    private static class Alteracoes {
+        private final Set<Long> artistas = new TreeSet<>();
+        private final List<String> incluidas = new ArrayList<>();
+        private final List<String> excluidas = new ArrayList<>();
+
+        void adicionar(CatalogoAlterado evento) {
+            if (evento.artistaId() != null) {
+                artistas.add(evento.artistaId());
+            }
+            if (evento.entidade() == CatalogoAlterado.Entidade.MUSICA) {
+                (evento.removido() ? excluidas : incluidas).addAll(evento.titulos());
+            }
+        }
+    }
+
+    /**
+     * Junta cada alteração feita nesta instância às demais alterações da mesma transação.
+     *
+     * @EventListener (e não @TransactionalEventListener): é chamado na hora, dentro da transação,
+     * para o NOTIFY poder ser enviado antes do COMMIT. Fora de uma transação, notifica na hora.
+     */
+    @EventListener
+    public void aoAlterarCatalogo(CatalogoAlterado evento) {
+        if (!ativo || evento.remoto()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            Alteracoes avulsa = new Alteracoes();
+            avulsa.adicionar(evento);
+            try (Connection conexao = dataSource.getConnection()) {
+                notificar(conexao, avulsa);
+            } catch (SQLException e) {
+                log.warn("Não foi possível notificar as outras instâncias: {}", e.getMessage());
+            }
+            return;
+        }
+        alteracoesDaTransacao().adicionar(evento);
+    }
+
+    /**
+     * Alterações da transação atual; na primeira, agenda o envio do NOTIFY.
+     *
+     * Por que um processo do Hibernate, e não TransactionSynchronization.beforeCommit do Spring?
+     * - As alterações de entidades já carregadas (ex: setTipo) só são gravadas no flush feito
+     *   DENTRO do commit, depois do beforeCommit do Spring: os eventos chegariam tarde demais
+     * - O BeforeTransactionCompletionProcess roda depois desse último flush e antes do COMMIT
+     *   do JDBC, na mesma conexão
+     */
+    private Alteracoes alteracoesDaTransacao() {
+        Alteracoes alteracoes = (Alteracoes) TransactionSynchronizationManager.getResource(this);
+        if (alteracoes != null) {
+            return alteracoes;
+        }
+        Alteracoes novas = new Alteracoes();
+        TransactionSynchronizationManager.bindResource(this, novas);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(BarramentoInvalidacao.this);
+            }
+        });
+        entityManager.unwrap(SessionImplementor.class).getActionQueue().registerProcess(
+                (BeforeTransactionCompletionProcess) sessao -> sessao.doWork(conexao -> notificar(conexao, novas)));
+        return novas;
+    }
+
+    /**
+     * Envia as alterações em NOTIFYs (na transação da conexão, se houver).
+     * Se falhar, a transação é desfeita junto: os dados não ficam gravados sem a notificação.
+     */
+    private void notificar(Connection conexao, Alteracoes alteracoes) throws SQLException {
+        List<String> mensagens = new ArrayList<>();
+        boolean cabem = dividir(mensagens, ARTISTAS, alteracoes.artistas.stream().map(String::valueOf).toList())
+                && dividir(mensagens, INCLUIDAS, alteracoes.incluidas.stream().map(BarramentoInvalidacao::codificar).toList())
+                && dividir(mensagens, EXCLUIDAS, alteracoes.excluidas.stream().map(BarramentoInvalidacao::codificar).toList());
+        if (!cabem || mensagens.size() > MAXIMO_MENSAGENS) {
+            mensagens = List.of(instancia + "|" + TUDO);
+        }
+        try (PreparedStatement notify = conexao.prepareStatement("SELECT pg_notify(?, ?)")) {
+            notify.setString(1, CANAL);
+            for (String mensagem : mensagens) {
+                notify.setString(2, mensagem);
+                notify.execute();
+            }
+        }
+    }
+
+    /**
+     * Junta os valores em mensagens "instancia|tipo|v1,v2,..." abaixo de TAMANHO_MAXIMO_MENSAGEM
+     * (ids e textos codificados: 1 byte por caractere).
+     *
+     * @return false se um valor sozinho não cabe em uma mensagem
+     */
+    private boolean dividir(List<String> mensagens, String tipo, List<String> valores) {
+        String prefixo = instancia + "|" + tipo + "|";
+        StringBuilder atual = new StringBuilder(prefixo);
+        for (String valor : valores) {
+            if (prefixo.length() + valor.length() > TAMANHO_MAXIMO_MENSAGEM) {
+                return false;
+            }
+            if (atual.length() > prefixo.length()) {
+                if (atual.length() + 1 + valor.length() > TAMANHO_MAXIMO_MENSAGEM) {
+                    mensagens.add(atual.toString());
+                    atual.setLength(prefixo.length());
+                } else {
+                    atual.append(',');
+                }
+            }
+            atual.append(valor);
+        }
+        if (atual.length() > prefixo.length()) {
+            mensagens.add(atual.toString());
+        }
+        return true;
+    }
+
+    /**
+     * Laço da thread ouvinte: conecta, faz LISTEN e repassa as notificações recebidas.
+     * Se a conexão cair, reconecta e invalida o catálogo inteiro (notificações podem ter sido perdidas).
+     */
+    private void escutar() {
+        boolean primeiraConexao = true;
+        while (executando) {
+            try (Connection conexao = DriverManager.getConnection(url, usuario, senha)) {
+                try (Statement listen = conexao.createStatement()) {
+                    listen.execute("LISTEN " + CANAL);
+                }
+                if (!primeiraConexao) {
+                    publicador.publishEvent(new CatalogoInvalidado("reconexão do LISTEN"));
+                }
+                primeiraConexao = false;
+                log.info("Escutando invalidações no canal {}", CANAL);
+
+                PGConnection pgConexao = conexao.unwrap(PGConnection.class);
+                while (executando) {
+                    PGNotification[] notificacoes = pgConexao.getNotifications(ESPERA_MS);
+                    if (notificacoes != null) {
+                        for (PGNotification notificacao : notificacoes) {
+                            tratar(notificacao.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (executando) {
+                    log.warn("Conexão de LISTEN perdida ({}); reconectando em {} ms", e.getMessage(), ESPERA_RECONEXAO_MS);
+                    aguardarReconexao();
+                }
+            }
+        }
+    }
+
+    private void tratar(String mensagem) {
+        String[] partes = mensagem.split("\\|", 3);
+        if (partes.length < 2 || partes[0].equals(instancia)) {
+            return;  // mensagem inválida ou enviada por esta própria instância
+        }
+        String valores = partes.length == 3 ? partes[2] : "";
+        try {
+            switch (partes[1]) {
+                case TUDO -> publicador.publishEvent(new CatalogoInvalidado("muitas alterações em outra instância"));
+                case ARTISTAS -> separar(valores).forEach(id -> publicador.publishEvent(
+                        new CatalogoAlterado(CatalogoAlterado.Entidade.ARTISTA, id, id, false, true, List.of())));
+                case INCLUIDAS, EXCLUIDAS -> publicador.publishEvent(new CatalogoAlterado(CatalogoAlterado.Entidade.MUSICA,
+                        null, null, partes[1].equals(EXCLUIDAS), true,
+                        Arrays.stream(valores.split(",")).map(BarramentoInvalidacao::decodificar).toList()));
+                default -> log.warn("Notificação ignorada: {}", mensagem);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Notificação ignorada: {}", mensagem);
+        }
+    }
+
+    private void aguardarReconexao() {
+        try {
+            Thread.sleep(ESPERA_RECONEXAO_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executando = false;
+        }
+    }
+
+    // Sem vírgulas nem barras verticais no texto codificado
+    private static String codificar(String titulo) {
+        return URLEncoder.encode(titulo, StandardCharsets.UTF_8);
+    }
+
+    private static String decodificar(String titulo) {
+        return URLDecoder.decode(titulo, StandardCharsets.UTF_8);
+    }
+
+    private static List<Long> separar(String texto) {
+        return texto.isEmpty() ? List.of() : Arrays.stream(texto.split(",")).map(Long::valueOf).toList();
+    }
+}
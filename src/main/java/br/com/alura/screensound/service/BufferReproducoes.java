@@ -0,0 +1,119 @@
+package br.com.alura.screensound.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffer circular (ring buffer) de reproduções ainda não gravadas no banco.
+ *
+ * Como funciona?
+ * - Dois arrays de long de tamanho fixo (id da música e instante em milissegundos):
+ *   nenhum objeto é criado por reprodução registrada
+ * - Muitas threads registram (produtores); uma única thread drena em lotes (consumidor)
+ * - inicio/quantidade dão a volta no array: a posição é (inicio + i) % capacidade
+ *
+ * Buffer cheio = o banco não está acompanhando: quem registra ESPERA até haver espaço
+ * (contrapressão), em vez de a memória crescer sem limite.
+ *
+ * Buffer fechado = ninguém mais vai drenar por muito tempo: novos registros (e quem estava
+ * esperando espaço) falham na hora, em vez de ficarem presos para sempre.
+ */
+final class BufferReproducoes {
+
+    private final long[] musicas;
+    private final long[] instantes;
+    private final int capacidade;
+
+    private int inicio;
+    private int quantidade;
+    private boolean fechado;
+
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition naoVazio = trava.newCondition();
+    private final Condition naoCheio = trava.newCondition();
+
+    BufferReproducoes(int capacidade) {
+        this.capacidade = capacidade;
+        this.musicas = new long[capacidade];
+        this.instantes = new long[capacidade];
+    }
+
+    /**
+     * Registra uma reprodução, esperando se o buffer estiver cheio.
+     *
+     * @throws IllegalStateException se o buffer foi fechado (antes ou durante a espera)
+     */
+    void registrar(long musicaId, long instante) throws InterruptedException {
+        trava.lock();
+        try {
+            while (quantidade == capacidade && !fechado) {
+                naoCheio.await();
+            }
+            if (fechado) {
+                throw new IllegalStateException("Registro de reproduções encerrado");
+            }
+            int posicao = (inicio + quantidade) % capacidade;
+            musicas[posicao] = musicaId;
+            instantes[posicao] = instante;
+            quantidade++;
+            naoVazio.signal();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Copia até destinoMusicas.length reproduções para os arrays de destino e as remove do buffer.
+     * Se o buffer estiver vazio, espera no máximo esperaMs por alguma reprodução.
+     *
+     * @return quantidade copiada (0 se nada chegou durante a espera)
+     */
+    int drenar(long[] destinoMusicas, long[] destinoInstantes, long esperaMs) throws InterruptedException {
+        trava.lock();
+        try {
+            long restante = TimeUnit.MILLISECONDS.toNanos(esperaMs);
+            while (quantidade == 0 && restante > 0) {
+                restante = naoVazio.awaitNanos(restante);
+            }
+            int copiar = Math.min(quantidade, destinoMusicas.length);
+            // Copia em até dois trechos: do início até o fim do array e, se deu a volta, do começo do array
+            int primeiroTrecho = Math.min(copiar, capacidade - inicio);
+            System.arraycopy(musicas, inicio, destinoMusicas, 0, primeiroTrecho);
+            System.arraycopy(instantes, inicio, destinoInstantes, 0, primeiroTrecho);
+            System.arraycopy(musicas, 0, destinoMusicas, primeiroTrecho, copiar - primeiroTrecho);
+            System.arraycopy(instantes, 0, destinoInstantes, primeiroTrecho, copiar - primeiroTrecho);
+
+            inicio = (inicio + copiar) % capacidade;
+            quantidade -= copiar;
+            if (copiar > 0) {
+                naoCheio.signalAll();
+            }
+            return copiar;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Recusa novos registros; o que já está no buffer ainda pode ser drenado.
+     */
+    void fechar() {
+        trava.lock();
+        try {
+            fechado = true;
+            naoCheio.signalAll();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    int quantidade() {
+        trava.lock();
+        try {
+            return quantidade;
+        } finally {
+            trava.unlock();
+        }
+    }
+}
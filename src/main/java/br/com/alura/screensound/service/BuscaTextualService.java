@@ -0,0 +1,142 @@
+package br.com.alura.screensound.service;
+
+import br.com.alura.screensound.model.Artista;
+import br.com.alura.screensound.model.Musica;
+import br.com.alura.screensound.model.TipoArtista;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Busca textual sobre artistas e músicas usando o índice Lucene (Hibernate Search).
+ *
+ * Diferenças para a busca com LIKE/ILIKE dos repositories:
+ * - Resultados ordenados por RELEVÂNCIA (quanto mais o texto combina, mais acima)
+ * - Tolera erros de digitação: "madona" encontra "Madonna" (busca fuzzy)
+ * - Busca artista e título ao mesmo tempo: "madonna prayer" encontra "Like a Prayer"
+ * - Não consulta o PostgreSQL: os dados exibidos vêm do próprio índice (projeções)
+ *
+ * Como o índice é mantido?
+ * - Cada save() de Artista/Musica atualiza o índice automaticamente após o commit
+ * - reindexar() reconstrói o índice inteiro a partir do banco, com várias threads
+ *   (necessário na primeira vez, para os dados cadastrados antes do índice existir)
+ */
+@Service
+public class BuscaTextualService {
+
+    /**
+     * Uma música encontrada na busca.
+     *
+     * @param relevancia - pontuação do Lucene (maior = mais relevante)
+     */
+    public record MusicaEncontrada(Long id, String titulo, String artista, float relevancia) {
+        @Override
+        public String toString() {
+            return "Música: " + titulo + " - Artista: " + artista;
+        }
+    }
+
+    /**
+     * Um artista encontrado na busca.
+     */
+    public record ArtistaEncontrado(Long id, String nome, TipoArtista tipo, float relevancia) {
+        @Override
+        public String toString() {
+            return "Artista: " + nome + " (" + tipo + ")";
+        }
+    }
+
+    // Quantidade de caracteres diferentes tolerados por palavra (erros de digitação)
+    private static final int DISTANCIA_MAXIMA = 1;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public BuscaTextualService(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Busca músicas pelo título e/ou pelo nome do artista.
+     * Palavras do título valem o dobro das palavras do nome do artista.
+     *
+     * @param texto  - texto digitado (ex: "madonna prayer")
+     * @param limite - quantidade máxima de resultados
+     */
+    public List<MusicaEncontrada> buscarMusicas(String texto, int limite) {
+        return comSessao(sessao -> sessao
+                .search(Musica.class)
+                .select(f -> f.composite()
+                        .from(f.id(Long.class),
+                                f.field("titulo", String.class),
+                                f.field("artista.nome", String.class),
+                                f.score())
+                        .asList(valores -> new MusicaEncontrada(
+                                (Long) valores.get(0),
+                                (String) valores.get(1),
+                                (String) valores.get(2),
+                                (Float) valores.get(3))))
+                .where(f -> f.match()
+                        .field("titulo").boost(2.0f)
+                        .field("artista.nome")
+                        .matching(texto)
+                        .fuzzy(DISTANCIA_MAXIMA))
+                .fetchHits(limite));
+    }
+
+    /**
+     * Busca artistas pelo nome, ordenados por relevância.
+     */
+    public List<ArtistaEncontrado> buscarArtistas(String texto, int limite) {
+        return comSessao(sessao -> sessao
+                .search(Artista.class)
+                .select(f -> f.composite()
+                        .from(f.id(Long.class),
+                                f.field("nome", String.class),
+                                f.field("tipo", TipoArtista.class),
+                                f.score())
+                        .asList(valores -> new ArtistaEncontrado(
+                                (Long) valores.get(0),
+                                (String) valores.get(1),
+                                (TipoArtista) valores.get(2),
+                                (Float) valores.get(3))))
+                .where(f -> f.match()
+                        .field("nome")
+                        .matching(texto)
+                        .fuzzy(DISTANCIA_MAXIMA))
+                .fetchHits(limite));
+    }
+
+    /**
+     * Reconstrói o índice inteiro a partir do banco.
+     *
+     * O MassIndexer lê as entidades em lotes, usando várias threads em paralelo.
+     *
+     * @param threads - quantidade de threads carregando entidades
+     */
+    public void reindexar(int threads) throws InterruptedException {
+        Search.mapping(entityManagerFactory)
+                .scope(Object.class)
+                .massIndexer()
+                .threadsToLoadObjects(threads)
+                .batchSizeToLoadObjects(100)
+                .startAndWait();
+    }
+
+    /**
+     * Executa a busca em um EntityManager próprio, sem transação.
+     * Como só usamos projeções, nenhuma conexão com o banco é aberta.
+     */
+    private <T> T comSessao(Function<SearchSession, T> busca) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return busca.apply(Search.session(entityManager));
+        } finally {
+            entityManager.close();
+        }
+    }
+}
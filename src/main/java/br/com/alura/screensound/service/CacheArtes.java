@@ -0,0 +1,379 @@
+package br.com.alura.screensound.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cache local das imagens de artistas do TheAudioDB (miniatura e logo).
+ *
+ * Ativação: screensound.artes.enabled=true
+ *
+ * Como funciona?
+ * - agendar(url) baixa a imagem em segundo plano (cada URL uma única vez, mesmo se pedida várias vezes)
+ * - O arquivo é gravado com o nome = SHA-256 do conteúdo + extensão (endereçado pelo conteúdo):
+ *   a mesma imagem em duas URLs ocupa o disco uma vez só, e o nome nunca muda de conteúdo
+ *   (por isso o ServidorArtes pode mandar o navegador guardar a imagem "para sempre")
+ * - A tabela artes guarda URL -> arquivo
+ *
+ * Limite de disco (LRU):
+ * - Acima de screensound.artes.limite-mb, os arquivos usados há mais tempo são apagados
+ * - A ordem de uso fica em memória e também na data de modificação dos arquivos
+ *   (atualizada a cada acesso), para sobreviver a reinicializações
+ * - Uma imagem apagada é baixada de novo na próxima vez que for pedida
+ */
+@Service
+public class CacheArtes {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheArtes.class);
+
+    private static final long TAMANHO_MAXIMO_IMAGEM = 10 * 1024 * 1024;
+    private static final int DOWNLOADS_SIMULTANEOS = 2;
+
+    // Nome de um arquivo do cache: 64 dígitos hexadecimais + extensão
+    static final Pattern NOME_ARQUIVO = Pattern.compile("[0-9a-f]{64}\\.(png|jpg|gif|webp)");
+
+    private static final Map<String, String> EXTENSOES = Map.of(
+            "image/png", "png", "image/jpeg", "jpg", "image/gif", "gif", "image/webp", "webp");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean ativo;
+    private final Path pasta;
+    private final long limiteBytes;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ExecutorService downloads = Executors.newFixedThreadPool(DOWNLOADS_SIMULTANEOS, tarefa -> {
+        Thread thread = new Thread(tarefa, "screensound-artes");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // URLs com download agendado ou em andamento
+    private final Set<String> baixando = ConcurrentHashMap.newKeySet();
+
+    // Arquivo -> tamanho, do usado há mais tempo para o mais recente (accessOrder = true). Protegido por synchronized(lru)
+    private final LinkedHashMap<String, Long> lru = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytesEmUso;
+
+    public CacheArtes(JdbcTemplate jdbcTemplate,
+                      @Value("${screensound.artes.enabled:false}") boolean ativo,
+                      @Value("${screensound.artes.pasta:artes}") Path pasta,
+                      @Value("${screensound.artes.limite-mb:200}") long limiteMb) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ativo = ativo;
+        this.pasta = pasta;
+        this.limiteBytes = limiteMb * 1024 * 1024;
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    /**
+     * Cria a tabela artes e carrega os arquivos existentes na ordem LRU (data de modificação).
+     */
+    // condition: desligado, o evento não chega a criar o bean (inicialização preguiçosa do perfil startup)
+    @EventListener(value = ApplicationStartedEvent.class,
+            condition = "@environment.getProperty('screensound.artes.enabled', T(Boolean), false)")
+    public void iniciar() throws IOException {
+        if (!ativo) {
+            return;
+        }
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS artes (
+                    url text PRIMARY KEY,
+                    arquivo varchar(80) NOT NULL
+                )""");
+        Files.createDirectories(pasta);
+
+        record Existente(String nome, long tamanho, FileTime usadoEm) {
+        }
+        List<Existente> existentes = new ArrayList<>();
+        try (Stream<Path> arquivos = Files.list(pasta)) {
+            for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+                String nome = arquivo.getFileName().toString();
+                if (NOME_ARQUIVO.matcher(nome).matches()) {
+                    BasicFileAttributes atributos = Files.readAttributes(arquivo, BasicFileAttributes.class);
+                    existentes.add(new Existente(nome, atributos.size(), atributos.lastModifiedTime()));
+                } else if (nome.endsWith(".tmp")) {
+                    Files.deleteIfExists(arquivo);  // download interrompido
+                }
+            }
+        }
+        existentes.sort(Comparator.comparing(Existente::usadoEm));
+        synchronized (lru) {
+            for (Existente existente : existentes) {
+                lru.put(existente.nome(), existente.tamanho());
+                bytesEmUso += existente.tamanho();
+            }
+        }
+        liberarEspaco();
+        log.info("Cache de imagens: {} arquivos, {} KB em {}", existentes.size(), bytesEmUso / 1024, pasta);
+    }
+
+    @PreDestroy
+    public void parar() {
+        downloads.shutdownNow();
+    }
+
+    /**
+     * Agenda o download da imagem, se ainda não estiver no cache. Retorna na hora.
+     */
+    public void agendar(String url) {
+        if (!ativo || url == null || url.isBlank() || arquivoDaUrl(url).isPresent() || !baixando.add(url)) {
+            return;
+        }
+        try {
+            downloads.execute(() -> {
+                try {
+                    baixar(url);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Falha ao baixar a imagem {}: {}", url, e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    baixando.remove(url);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            baixando.remove(url);  // aplicação encerrando
+        }
+    }
+
+    /**
+     * Espera os downloads agendados terminarem (ex: antes de o modo lote encerrar a aplicação).
+     *
+     * @param esperaMaximaMs - tempo máximo de espera
+     */
+    public void aguardarDownloads(long esperaMaximaMs) throws InterruptedException {
+        long limite = System.currentTimeMillis() + esperaMaximaMs;
+        while (!baixando.isEmpty() && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Nome do arquivo em cache para a URL (vazio se ainda não baixado ou já removido pelo LRU).
+     */
+    public Optional<String> arquivoDaUrl(String url) {
+        try {
+            return jdbcTemplate.queryForList("SELECT arquivo FROM artes WHERE url = ?", String.class, url)
+                    .stream()
+                    .filter(this::contem)
+                    .findFirst();
+        } catch (DataAccessException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Abre o arquivo em cache para leitura, marcando-o como usado agora (LRU).
+     *
+     * O canal é aberto com a trava do LRU, a mesma usada por liberarEspaco() para apagar:
+     * o arquivo não pode sumir entre a consulta ao mapa e a abertura. Depois de aberto,
+     * o canal continua lendo o conteúdo mesmo que o arquivo seja apagado em seguida.
+     *
+     * @param nome - nome do arquivo (hash + extensão)
+     * @return canal de leitura (quem recebe deve fechá-lo); vazio se o nome for inválido
+     *         ou o arquivo não estiver no cache
+     */
+    public Optional<FileChannel> abrir(String nome) throws IOException {
+        if (!NOME_ARQUIVO.matcher(nome).matches()) {
+            return Optional.empty();
+        }
+        Path arquivo = pasta.resolve(nome);
+        FileChannel canal;
+        synchronized (lru) {
+            if (lru.get(nome) == null) {  // get() também move o arquivo para o fim da fila LRU
+                return Optional.empty();
+            }
+            try {
+                canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                // Apagado por fora: sai do mapa e a imagem é baixada de novo quando pedida
+                bytesEmUso -= lru.remove(nome);
+                return Optional.empty();
+            }
+        }
+        try {
+            Files.setLastModifiedTime(arquivo, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Só a ordem do LRU após uma reinicialização fica menos precisa
+            log.debug("Não foi possível atualizar a data de {}: {}", nome, e.getMessage());
+        }
+        return Optional.of(canal);
+    }
+
+    public long bytesEmUso() {
+        synchronized (lru) {
+            return bytesEmUso;
+        }
+    }
+
+    private boolean contem(String nome) {
+        synchronized (lru) {
+            return lru.containsKey(nome);
+        }
+    }
+
+    /**
+     * Baixa para um arquivo temporário calculando o SHA-256 durante a leitura,
+     * depois renomeia para o nome definitivo (o arquivo final nunca fica pela metade).
+     */
+    private void baixar(String url) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("User-Agent", "Mozilla/5.0")
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream corpo = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+            String extensao = extensao(response.headers().firstValue("Content-Type").orElse(""), url);
+
+            Path temporario = Files.createTempFile(pasta, "download-", ".tmp");
+            try {
+                MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+                long tamanho = 0;
+                try (OutputStream saida = Files.newOutputStream(temporario)) {
+                    byte[] buffer = new byte[64 * 1024];
+                    int lidos;
+                    while ((lidos = corpo.read(buffer)) != -1) {
+                        tamanho += lidos;
+                        if (tamanho > TAMANHO_MAXIMO_IMAGEM) {
+                            throw new IOException("imagem maior que " + TAMANHO_MAXIMO_IMAGEM / 1024 + " KB");
+                        }
+                        sha256.update(buffer, 0, lidos);
+                        saida.write(buffer, 0, lidos);
+                    }
+                }
+                String nome = HexFormat.of().formatHex(sha256.digest()) + "." + extensao;
+
+                synchronized (lru) {
+                    if (lru.get(nome) == null) {
+                        // Conteúdo novo (o mesmo conteúdo em outra URL já estaria no mapa)
+                        Files.move(temporario, pasta.resolve(nome),
+                                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                        lru.put(nome, tamanho);
+                        bytesEmUso += tamanho;
+                    }
+                }
+                jdbcTemplate.update("""
+                        INSERT INTO artes (url, arquivo) VALUES (?, ?)
+                        ON CONFLICT (url) DO UPDATE SET arquivo = EXCLUDED.arquivo""", url, nome);
+                liberarEspaco();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                Files.deleteIfExists(temporario);
+            }
+        }
+    }
+
+    /**
+     * Apaga os arquivos usados há mais tempo até o cache caber no limite.
+     * (As linhas da tabela artes ficam: apontam para um arquivo que não está no cache e a
+     * imagem é baixada de novo quando pedida.)
+     */
+    private void liberarEspaco() {
+        List<String> removidos = new ArrayList<>();
+        synchronized (lru) {
+            Iterator<Map.Entry<String, Long>> maisAntigos = lru.entrySet().iterator();
+            while (bytesEmUso > limiteBytes && maisAntigos.hasNext()) {
+                Map.Entry<String, Long> arquivo = maisAntigos.next();
+                bytesEmUso -= arquivo.getValue();
+                removidos.add(arquivo.getKey());
+                maisAntigos.remove();
+            }
+        }
+        for (String nome : removidos) {
+            // Com a trava: abrir() não abre um arquivo no meio da exclusão, e um download do mesmo
+            // conteúdo que o trouxe de volta ao mapa nesse meio tempo não perde o arquivo
+            synchronized (lru) {
+                if (lru.containsKey(nome)) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(pasta.resolve(nome));
+                } catch (IOException e) {
+                    log.warn("Não foi possível apagar {} do cache: {}", nome, e.getMessage());
+                }
+            }
+        }
+        if (!removidos.isEmpty()) {
+            log.info("Cache de imagens: {} arquivos removidos (LRU), {} KB em uso", removidos.size(), bytesEmUso() / 1024);
+        }
+    }
+
+    // Extensão pelo Content-Type; se o servidor não informar, pela URL
+    private static String extensao(String contentType, String url) throws IOException {
+        String tipo = contentType.split(";")[0].trim().toLowerCase(Locale.ROOT);
+        if (EXTENSOES.containsKey(tipo)) {
+            return EXTENSOES.get(tipo);
+        }
+        String caminho = URI.create(url).getPath().toLowerCase(Locale.ROOT);
+        for (String extensao : EXTENSOES.values()) {
+            if (caminho.endsWith("." + extensao)) {
+                return extensao;
+            }
+        }
+        if (caminho.endsWith(".jpeg")) {
+            return "jpg";
+        }
+        throw new IOException("tipo de conteúdo não suportado: " + contentType);
+    }
+
+    static String tipoConteudo(String nomeArquivo) {
+        String extensao = nomeArquivo.substring(nomeArquivo.lastIndexOf('.') + 1);
+        return EXTENSOES.entrySet().stream()
+                .filter(tipo -> tipo.getValue().equals(extensao))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse("application/octet-stream");
+    }
+}
@@ -0,0 +1,101 @@
+package br.com.alura.screensound.service;
+
+import br.com.alura.screensound.model.Artista;
+import br.com.alura.screensound.model.Musica;
+import br.com.alura.screensound.model.TipoArtista;
+import br.com.alura.screensound.repository.ArtistaRepository;
+import br.com.alura.screensound.repository.MusicaRepository;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Operações de cadastro que podem acontecer ao mesmo tempo em várias threads/instâncias.
+ *
+ * Duas regras:
+ * 1. Músicas são inseridas diretamente (INSERT em musicas). O artista não é lido para
+ *    alteração nem regravado, então cadastros simultâneos do mesmo artista não competem.
+ * 2. Alterações no próprio artista usam a @Version do Artista. Se outra transação alterou
+ *    o artista no meio do caminho, a operação é repetida do zero (lendo os dados novos),
+ *    até TENTATIVAS vezes, com uma pequena espera aleatória entre as tentativas.
+ */
+@Service
+public class CadastroService {
+
+    static final int TENTATIVAS = 5;
+    private static final long ESPERA_BASE_MS = 10;
+
+    private final ArtistaRepository artistaRepository;
+    private final MusicaRepository musicaRepository;
+    private final TransactionTemplate transacao;
+
+    public CadastroService(ArtistaRepository artistaRepository, MusicaRepository musicaRepository,
+                           PlatformTransactionManager transactionManager) {
+        this.artistaRepository = artistaRepository;
+        this.musicaRepository = musicaRepository;
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Insere músicas de um artista sem carregar nem alterar o artista.
+     *
+     * getReferenceById() - devolve uma referência (proxy) ao artista sem fazer SELECT;
+     *   basta o id para preencher a coluna artista_id da música.
+     *
+     * @return músicas gravadas (com id)
+     */
+    public List<Musica> adicionarMusicas(Long artistaId, List<String> titulos) {
+        return transacao.execute(status -> {
+            Artista artista = artistaRepository.getReferenceById(artistaId);
+            List<Musica> musicas = titulos.stream()
+                    .map(titulo -> new Musica(titulo, artista))
+                    .toList();
+            return musicaRepository.saveAll(musicas);
+        });
+    }
+
+    /**
+     * Altera o tipo de um artista, repetindo a operação em caso de conflito de versão.
+     */
+    public Artista alterarTipo(Long artistaId, TipoArtista tipo) {
+        return comRetentativa(() -> transacao.execute(status -> {
+            Artista artista = artistaRepository.findById(artistaId)
+                    .orElseThrow(() -> new IllegalArgumentException("Artista não encontrado: " + artistaId));
+            artista.setTipo(tipo);
+            return artistaRepository.save(artista);
+        }));
+    }
+
+    /**
+     * Executa a operação; em caso de conflito de versão (ObjectOptimisticLockingFailureException)
+     * espera um pouco e executa de novo. Cada tentativa deve abrir sua própria transação.
+     */
+    <T> T comRetentativa(Supplier<T> operacao) {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return operacao.get();
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (tentativa == TENTATIVAS) {
+                    throw e;
+                }
+                aguardar(tentativa);
+            }
+        }
+    }
+
+    // Espera crescente com um valor aleatório, para as threads em conflito não tentarem juntas de novo
+    private static void aguardar(int tentativa) {
+        long espera = ESPERA_BASE_MS * tentativa + ThreadLocalRandom.current().nextLong(ESPERA_BASE_MS);
+        try {
+            Thread.sleep(espera);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando nova tentativa", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.alura.screensound.service;
+
+import java.util.List;
+
+/**
+ * Evento publicado sempre que um Artista ou uma Música é gravado ou removido.
+ *
+ * Quem publica?
+ * - O CatalogoEntityListener, chamado pelo JPA após INSERT/UPDATE/DELETE
+ * - O ExclusaoCatalogoService, nas exclusões em massa (que não passam pelos Entity Listeners)
+ * - O BarramentoInvalidacao, quando a alteração foi feita por OUTRA instância da aplicação
+ *
+ * Quem escuta?
+ * - Componentes que guardam cópias do catálogo em memória e precisam se atualizar
+ *   (ex: CatalogoEmMemoria). Eles usam @TransactionalEventListener para só reagir
+ *   DEPOIS do commit, quando os dados já estão visíveis no banco.
+ *
+ * @param entidade  - tipo do registro alterado (ARTISTA ou MUSICA)
+ * @param id        - id do registro alterado (null = várias músicas do artista, em uma exclusão em massa)
+ * @param artistaId - id do artista afetado (o próprio id, no caso de um artista)
+ * @param removido  - true quando o registro foi excluído
+ * @param remoto    - true quando a alteração veio de outra instância (não deve ser repassada)
+ * @param titulos   - títulos das músicas incluídas (removido = false) ou excluídas (removido = true),
+ *                    um por música; vazio quando nenhuma música entrou ou saiu (ex: música alterada).
+ *                    Permite ao autocompletar somar/subtrair as contagens sem consultar o banco
+ */
+public record CatalogoAlterado(Entidade entidade, Long id, Long artistaId, boolean removido, boolean remoto,
+                               List<String> titulos) {
+
+    public enum Entidade {
+        ARTISTA, MUSICA
+    }
+
+    /**
+     * Alteração feita nesta instância.
+     */
+    public CatalogoAlterado(Entidade entidade, Long id, Long artistaId, boolean removido) {
+        this(entidade, id, artistaId, removido, false, List.of());
+    }
+
+    /**
+     * Músicas incluídas ou excluídas nesta instância, com os títulos.
+     */
+    public static CatalogoAlterado musicas(Long id, Long artistaId, boolean removido, List<String> titulos) {
+        return new CatalogoAlterado(Entidade.MUSICA, id, artistaId, removido, false, titulos);
+    }
+}
@@ -0,0 +1,465 @@
+package br.com.alura.screensound.service;
+
+import br.com.alura.screensound.model.TipoArtista;
+import br.com.alura.screensound.repository.ArtistaRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Modelo de leitura do catálogo mantido em memória (opcional).
+ *
+ * Ativação: screensound.catalogo-memoria.enabled=true
+ *
+ * Por que um modelo de leitura?
+ * - Listar músicas e buscar músicas por artista são operações muito mais frequentes que cadastros
+ * - Com o catálogo em memória, essas consultas não passam pelo Hibernate nem pelo PostgreSQL
+ *
+ * Como os dados ficam organizados? (ver Instantaneo)
+ * - Ids em arrays de long (primitivos, sem objetos Long)
+ * - Nomes e títulos "internados" (textos repetidos ocupam memória uma única vez)
+ * - Músicas de todos os artistas em um único array; o artista i tem as músicas
+ *   das posições inicioMusicas[i] até inicioMusicas[i + 1] - 1 (lista de adjacência por offsets)
+ * - Uma consulta percorre os arrays sem criar nenhum objeto
+ *
+ * Como o modelo é atualizado?
+ * - O CatalogoEntityListener publica um CatalogoAlterado a cada gravação
+ *   (e o BarramentoInvalidacao faz o mesmo para gravações de outras instâncias)
+ * - Após o commit, o id do artista afetado é marcado como alterado
+ * - Uma thread própria recarrega do banco apenas os artistas alterados, intercala com o restante
+ *   em um novo Instantaneo e o publica trocando uma única referência volatile
+ *   (os leitores nunca veem um estado pela metade)
+ * - A leitura (instantaneo()) nunca consulta o banco nem monta nada: só devolve a referência atual.
+ *   Em troca, uma gravação aparece na leitura alguns milissegundos depois do commit
+ * - Alterações que chegam juntas (ATRASO_MS) ou durante uma atualização são aplicadas de uma vez,
+ *   em uma única intercalação
+ */
+@Component
+public class CatalogoEmMemoria {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoEmMemoria.class);
+
+    // Espera antes de aplicar as alterações, para juntar as de uma rajada de gravações
+    private static final long ATRASO_MS = 50;
+    private static final long ESPERA_FALHA_MS = 1_000;
+
+    private final ArtistaRepository artistaRepository;
+    private final TransactionTemplate transacao;
+    private final boolean ativo;
+
+    // Estado atual; trocado inteiro a cada atualização
+    private volatile Instantaneo atual = new Construtor().construir();
+
+    // Artistas que precisam ser recarregados e se já há uma atualização agendada (protegidos por synchronized)
+    private final Set<Long> artistasAlterados = new HashSet<>();
+    private boolean atualizacaoAgendada;
+
+    // Aplica as alterações e as recargas completas fora da thread de quem lê, uma por vez
+    private final ScheduledExecutorService atualizador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "screensound-catalogo-memoria");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Serializa quem troca o "atual" (carga completa e recarga parcial): uma recarga parcial montada
+    // a partir do estado antigo não pode sobrescrever uma carga completa feita enquanto ela trabalhava.
+    // É separado do synchronized(this) para marcarAlterado() não esperar o fim de uma carga completa.
+    private final Object trocaEstado = new Object();
+
+    public CatalogoEmMemoria(ArtistaRepository artistaRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${screensound.catalogo-memoria.enabled:false}") boolean ativo) {
+        this.artistaRepository = artistaRepository;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.transacao.setReadOnly(true);
+        this.ativo = ativo;
+    }
+
+    @PreDestroy
+    public void parar() {
+        atualizador.shutdownNow();
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    /**
+     * Carrega o catálogo inteiro quando a aplicação termina de iniciar (antes do menu).
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void carregar() {
+        if (!ativo) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        Instantaneo carregado;
+        synchronized (trocaEstado) {
+            synchronized (this) {
+                // Alterações que chegarem durante a carga são marcadas de novo e aplicadas depois
+                artistasAlterados.clear();
+            }
+            carregado = transacao.execute(status -> {
+                try (Stream<Object[]> linhas = artistaRepository.carregarCatalogo()) {
+                    Construtor construtor = new Construtor();
+                    linhas.forEach(construtor::adicionarLinha);
+                    return construtor.construir();
+                }
+            });
+            atual = carregado;
+        }
+
+        long milissegundos = (System.nanoTime() - inicio) / 1_000_000;
+        log.info("Catálogo em memória: {} artistas, {} músicas, ~{} KB (~{} MB por milhão de músicas), carregado em {} ms",
+                carregado.quantidadeArtistas(), carregado.quantidadeMusicas(),
+                carregado.bytesEstimados() / 1024, carregado.bytesPorMilhaoDeMusicas() / (1024 * 1024), milissegundos);
+    }
+
+    /**
+     * Marca o artista afetado por uma gravação como alterado.
+     *
+     * @TransactionalEventListener - só é chamado depois do COMMIT (se a transação
+     *   for desfeita, o evento é descartado). fallbackExecution = true trata também
+     *   gravações feitas fora de uma transação.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarCatalogo(CatalogoAlterado evento) {
+        if (ativo && evento.artistaId() != null) {
+            marcarAlterado(evento.artistaId());
+        }
+    }
+
+    /**
+     * Descarta o catálogo inteiro e carrega de novo (ex: notificações de outras instâncias perdidas).
+     * A carga é feita na thread de atualização: quem publicou o evento não espera.
+     */
+    @EventListener
+    public void aoInvalidarCatalogo(CatalogoInvalidado evento) {
+        if (ativo) {
+            atualizador.execute(() -> {
+                log.info("Recarregando catálogo em memória: {}", evento.motivo());
+                try {
+                    carregar();
+                } catch (RuntimeException e) {
+                    log.warn("Não foi possível recarregar o catálogo em memória: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Marca um artista para ser recarregado do banco (logo depois, na thread de atualização).
+     */
+    public synchronized void marcarAlterado(Long artistaId) {
+        artistasAlterados.add(artistaId);
+        agendarAtualizacao(ATRASO_MS);
+    }
+
+    private synchronized void agendarAtualizacao(long atrasoMs) {
+        if (!atualizacaoAgendada) {
+            atualizacaoAgendada = true;
+            atualizador.schedule(this::aplicarAlteracoes, atrasoMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Retorna o estado atual do catálogo: só lê uma referência volatile (sem banco, sem alocação).
+     * O Instantaneo retornado nunca muda: pode ser lido à vontade sem sincronização.
+     */
+    public Instantaneo instantaneo() {
+        return atual;
+    }
+
+    // Executado na thread de atualização
+    private void aplicarAlteracoes() {
+        synchronized (trocaEstado) {
+            List<Long> ids;
+            synchronized (this) {
+                atualizacaoAgendada = false;
+                if (artistasAlterados.isEmpty()) {
+                    return;
+                }
+                ids = List.copyOf(artistasAlterados);
+                artistasAlterados.clear();
+            }
+
+            try {
+                List<Object[]> linhas = transacao.execute(status -> artistaRepository.carregarCatalogo(ids));
+                Construtor recarregados = new Construtor();
+                linhas.forEach(recarregados::adicionarLinha);
+                atual = intercalar(atual, recarregados.construir(), ids);
+            } catch (RuntimeException e) {
+                // Mantém o estado anterior e tenta de novo mais tarde
+                log.warn("Não foi possível atualizar o catálogo em memória ({}); nova tentativa em {} ms",
+                        e.getMessage(), ESPERA_FALHA_MS);
+                synchronized (this) {
+                    artistasAlterados.addAll(ids);
+                    agendarAtualizacao(ESPERA_FALHA_MS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Monta um novo Instantaneo com os artistas do antigo (exceto os alterados) e os recarregados,
+     * mantendo a ordem por id. Custo proporcional ao tamanho do catálogo, sem consultar o banco.
+     */
+    private static Instantaneo intercalar(Instantaneo antigo, Instantaneo recarregados, List<Long> alterados) {
+        long[] idsAlterados = alterados.stream().mapToLong(Long::longValue).sorted().toArray();
+        Construtor construtor = new Construtor(
+                antigo.quantidadeArtistas() + recarregados.quantidadeArtistas(),
+                antigo.quantidadeMusicas() + recarregados.quantidadeMusicas());
+
+        int i = 0;
+        int k = 0;
+        while (i < antigo.quantidadeArtistas() || k < recarregados.quantidadeArtistas()) {
+            if (i < antigo.quantidadeArtistas() && Arrays.binarySearch(idsAlterados, antigo.artistaId(i)) >= 0) {
+                i++;  // versão antiga de um artista alterado (ou removido): descarta
+            } else if (k >= recarregados.quantidadeArtistas()
+                    || (i < antigo.quantidadeArtistas() && antigo.artistaId(i) < recarregados.artistaId(k))) {
+                construtor.copiarArtista(antigo, i++);
+            } else {
+                construtor.copiarArtista(recarregados, k++);
+            }
+        }
+        return construtor.construir();
+    }
+
+    /**
+     * Fotografia imutável do catálogo, organizada em arrays.
+     *
+     * Exemplo de uso (sem criar objetos durante a consulta):
+     * int artista = instantaneo.indiceArtista(10L);
+     * for (int m = instantaneo.inicioMusicas(artista); m < instantaneo.fimMusicas(artista); m++) {
+     *     System.out.println(instantaneo.titulo(m));
+     * }
+     */
+    public static final class Instantaneo {
+
+        private final long[] artistaIds;          // ordenado (permite busca binária)
+        private final String[] nomes;
+        private final String[] nomesMinusculos;   // para busca parcial ignorando maiúsculas
+        private final TipoArtista[] tipos;
+        private final int[] inicioMusicas;        // tamanho = artistas + 1
+        private final long[] musicaIds;
+        private final String[] titulos;
+        private final long bytesTextos;
+
+        private Instantaneo(long[] artistaIds, String[] nomes, String[] nomesMinusculos, TipoArtista[] tipos,
+                            int[] inicioMusicas, long[] musicaIds, String[] titulos) {
+            this.artistaIds = artistaIds;
+            this.nomes = nomes;
+            this.nomesMinusculos = nomesMinusculos;
+            this.tipos = tipos;
+            this.inicioMusicas = inicioMusicas;
+            this.musicaIds = musicaIds;
+            this.titulos = titulos;
+            this.bytesTextos = estimarBytesTextos(nomes, nomesMinusculos, titulos);
+        }
+
+        public int quantidadeArtistas() {
+            return artistaIds.length;
+        }
+
+        public int quantidadeMusicas() {
+            return musicaIds.length;
+        }
+
+        public long artistaId(int artista) {
+            return artistaIds[artista];
+        }
+
+        public String nome(int artista) {
+            return nomes[artista];
+        }
+
+        public TipoArtista tipo(int artista) {
+            return tipos[artista];
+        }
+
+        /**
+         * Posição do artista com o id informado, ou -1 se não existir (busca binária).
+         */
+        public int indiceArtista(long artistaId) {
+            int indice = Arrays.binarySearch(artistaIds, artistaId);
+            return indice >= 0 ? indice : -1;
+        }
+
+        /**
+         * Posição do primeiro artista cujo nome contém o trecho, ou -1.
+         * Equivalente ao findByNomeContainingIgnoreCase do ArtistaRepository.
+         *
+         * @param trechoMinusculo - trecho do nome já em minúsculas (Locale.ROOT)
+         */
+        public int buscarArtistaPorNome(String trechoMinusculo) {
+            for (int i = 0; i < nomesMinusculos.length; i++) {
+                if (nomesMinusculos[i].contains(trechoMinusculo)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /** Posição da primeira música do artista no array de músicas. */
+        public int inicioMusicas(int artista) {
+            return inicioMusicas[artista];
+        }
+
+        /** Posição seguinte à última música do artista (exclusiva). */
+        public int fimMusicas(int artista) {
+            return inicioMusicas[artista + 1];
+        }
+
+        public long musicaId(int musica) {
+            return musicaIds[musica];
+        }
+
+        public String titulo(int musica) {
+            return titulos[musica];
+        }
+
+        /**
+         * Estimativa da memória ocupada: arrays + textos (cada texto distinto contado uma vez,
+         * considerando cabeçalhos de objeto e 1 byte por caractere - compact strings).
+         */
+        public long bytesEstimados() {
+            int artistas = artistaIds.length;
+            int musicas = musicaIds.length;
+            long cabecalhos = 7L * 16;
+            long arraysArtistas = artistas * (8L + 4L + 4L + 4L) + (artistas + 1) * 4L;
+            long arraysMusicas = musicas * (8L + 4L);
+            return cabecalhos + arraysArtistas + arraysMusicas + bytesTextos;
+        }
+
+        /** Memória estimada proporcional a um milhão de músicas. */
+        public long bytesPorMilhaoDeMusicas() {
+            return musicaIds.length == 0 ? 0 : bytesEstimados() * 1_000_000L / musicaIds.length;
+        }
+
+        private static long estimarBytesTextos(String[]... grupos) {
+            Set<String> distintos = Collections.newSetFromMap(new IdentityHashMap<>());
+            long bytes = 0;
+            for (String[] textos : grupos) {
+                for (String texto : textos) {
+                    if (texto != null && distintos.add(texto)) {
+                        bytes += 40 + texto.length();
+                    }
+                }
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Monta um Instantaneo linha a linha, com arrays que crescem conforme a necessidade.
+     * As linhas devem chegar ordenadas por artista (como em carregarCatalogo).
+     */
+    private static final class Construtor {
+
+        private long[] artistaIds;
+        private String[] nomes;
+        private String[] nomesMinusculos;
+        private TipoArtista[] tipos;
+        private int[] inicioMusicas;
+        private long[] musicaIds;
+        private String[] titulos;
+        private int artistas;
+        private int musicas;
+
+        Construtor() {
+            this(16, 16);
+        }
+
+        Construtor(int capacidadeArtistas, int capacidadeMusicas) {
+            capacidadeArtistas = Math.max(capacidadeArtistas, 1);
+            capacidadeMusicas = Math.max(capacidadeMusicas, 1);
+            artistaIds = new long[capacidadeArtistas];
+            nomes = new String[capacidadeArtistas];
+            nomesMinusculos = new String[capacidadeArtistas];
+            tipos = new TipoArtista[capacidadeArtistas];
+            inicioMusicas = new int[capacidadeArtistas + 1];
+            musicaIds = new long[capacidadeMusicas];
+            titulos = new String[capacidadeMusicas];
+        }
+
+        /**
+         * Recebe uma linha [id do artista, nome, tipo, id da música, título].
+         */
+        void adicionarLinha(Object[] linha) {
+            long artistaId = (Long) linha[0];
+            if (artistas == 0 || artistaIds[artistas - 1] != artistaId) {
+                adicionarArtista(artistaId, (String) linha[1], (TipoArtista) linha[2]);
+            }
+            if (linha[3] != null) {
+                adicionarMusica((Long) linha[3], (String) linha[4]);
+            }
+        }
+
+        void copiarArtista(Instantaneo origem, int artista) {
+            adicionarArtista(origem.artistaId(artista), origem.nome(artista), origem.tipo(artista));
+            for (int m = origem.inicioMusicas(artista); m < origem.fimMusicas(artista); m++) {
+                adicionarMusica(origem.musicaId(m), origem.titulo(m));
+            }
+        }
+
+        private void adicionarArtista(long id, String nome, TipoArtista tipo) {
+            if (artistas == artistaIds.length) {
+                int capacidade = artistas * 2;
+                artistaIds = Arrays.copyOf(artistaIds, capacidade);
+                nomes = Arrays.copyOf(nomes, capacidade);
+                nomesMinusculos = Arrays.copyOf(nomesMinusculos, capacidade);
+                tipos = Arrays.copyOf(tipos, capacidade);
+                inicioMusicas = Arrays.copyOf(inicioMusicas, capacidade + 1);
+            }
+            String nomeInternado = nome == null ? "" : nome.intern();
+            artistaIds[artistas] = id;
+            nomes[artistas] = nomeInternado;
+            nomesMinusculos[artistas] = nomeInternado.toLowerCase(Locale.ROOT).intern();
+            tipos[artistas] = tipo;
+            inicioMusicas[artistas] = musicas;
+            artistas++;
+        }
+
+        private void adicionarMusica(long id, String titulo) {
+            if (musicas == musicaIds.length) {
+                int capacidade = musicas * 2;
+                musicaIds = Arrays.copyOf(musicaIds, capacidade);
+                titulos = Arrays.copyOf(titulos, capacidade);
+            }
+            musicaIds[musicas] = id;
+            titulos[musicas] = titulo == null ? "" : titulo.intern();
+            musicas++;
+        }
+
+        Instantaneo construir() {
+            inicioMusicas[artistas] = musicas;
+            return new Instantaneo(
+                    Arrays.copyOf(artistaIds, artistas),
+                    Arrays.copyOf(nomes, artistas),
+                    Arrays.copyOf(nomesMinusculos, artistas),
+                    Arrays.copyOf(tipos, artistas),
+                    Arrays.copyOf(inicioMusicas, artistas + 1),
+                    Arrays.copyOf(musicaIds, musicas),
+                    Arrays.copyOf(titulos, musicas));
+        }
+    }
+}
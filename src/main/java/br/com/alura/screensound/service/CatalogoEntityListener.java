@@ -0,0 +1,61 @@
+package br.com.alura.screensound.service;
+
+import br.com.alura.screensound.model.Artista;
+import br.com.alura.screensound.model.Musica;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+/**
+ * Entity Listener do JPA que transforma gravações de Artista e Musica em eventos do Spring.
+ *
+ * O que é um Entity Listener?
+ * - Uma classe com métodos chamados automaticamente pelo JPA em momentos do ciclo de vida
+ *   da entidade (@PostPersist = depois do INSERT, @PostUpdate = depois do UPDATE, etc.)
+ * - É registrado na entidade com @EntityListeners(CatalogoEntityListener.class)
+ *
+ * Por que a injeção pelo construtor funciona aqui?
+ * - O Spring Boot configura o Hibernate para criar os listeners pelo próprio Spring
+ *   (SpringBeanContainer), então as dependências são injetadas normalmente.
+ */
+public class CatalogoEntityListener {
+
+    private final ApplicationEventPublisher publicador;
+
+    public CatalogoEntityListener(ApplicationEventPublisher publicador) {
+        this.publicador = publicador;
+    }
+
+    @PostPersist
+    public void aoIncluir(Object entidade) {
+        publicar(entidade, false, true);
+    }
+
+    @PostUpdate
+    public void aoAlterar(Object entidade) {
+        publicar(entidade, false, false);
+    }
+
+    @PostRemove
+    public void aoRemover(Object entidade) {
+        publicar(entidade, true, true);
+    }
+
+    /**
+     * @param contarTitulo - true quando a música entrou ou saiu do catálogo (o título de uma
+     *   música gravada não muda: uma alteração não mexe nas contagens de títulos)
+     */
+    private void publicar(Object entidade, boolean removido, boolean contarTitulo) {
+        if (entidade instanceof Artista artista) {
+            publicador.publishEvent(new CatalogoAlterado(CatalogoAlterado.Entidade.ARTISTA,
+                    artista.getId(), artista.getId(), removido));
+        } else if (entidade instanceof Musica musica) {
+            Long artistaId = musica.getArtista() == null ? null : musica.getArtista().getId();
+            List<String> titulos = contarTitulo && musica.getTitulo() != null ? List.of(musica.getTitulo()) : List.of();
+            publicador.publishEvent(CatalogoAlterado.musicas(musica.getId(), artistaId, removido, titulos));
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package br.com.alura.screensound.service;
+
+/**
+ * Evento publicado quando não é possível saber O QUE mudou no catálogo
+ * (ex: a conexão de LISTEN caiu e notificações podem ter sido perdidas).
+ *
+ * Quem guarda o catálogo em memória deve descartar tudo e recarregar do banco.
+ *
+ * @param motivo - descrição para o log
+ */
+public record CatalogoInvalidado(String motivo) {
+}
@@ -0,0 +1,158 @@
+package br.com.alura.screensound.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chaves de ordenação fracionárias (fractional indexing) para listas reordenáveis.
+ *
+ * Problema das posições numéricas (1, 2, 3...):
+ * - Inserir ou mover um item para o meio obriga a renumerar todos os itens seguintes
+ *
+ * Solução:
+ * - A posição é um texto comparado caractere a caractere, e entre duas chaves SEMPRE existe outra
+ * - Inserir ou mover um item grava só a chave desse item; os vizinhos não mudam
+ *
+ * Formato da chave: parte inteira + parte fracionária, em dígitos base 36 (0-9, a-z)
+ * - Parte inteira: uma letra com a quantidade de dígitos ('a' = 1, 'b' = 2...) seguida dos dígitos.
+ *   Ex: 5 = "a5", 648 = "bi0". Números maiores têm letra maior, então a ordem do texto é a ordem numérica.
+ * - Parte fracionária (opcional): usada ao inserir entre dois inteiros consecutivos.
+ *   Ex: entre("bi0", "bi1") = "bi0i"; nunca termina em '0' (sempre há espaço para uma chave menor)
+ *
+ * Por que a parte inteira?
+ * - Adicionar ao final (o caso mais comum) é só somar 1: a chave cresce 1 caractere a cada
+ *   36, 1296, 46656... itens, em vez de crescer a cada poucos itens
+ *
+ * Só caracteres ASCII: a coluna no banco usa COLLATE "C" para ordenar como String.compareTo.
+ * Inserções repetidas no mesmo lugar aumentam a parte fracionária; distribuir() gera
+ * novas chaves curtas para a lista inteira (rebalanceamento).
+ */
+final class ChaveOrdenacao {
+
+    static final String DIGITOS = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITOS.length();
+
+    // Primeira chave de uma lista (e de uma lista rebalanceada): deixa espaço para itens antes dela
+    private static final long INICIO = BASE * BASE / 2;
+
+    private ChaveOrdenacao() {
+    }
+
+    /**
+     * Gera uma chave entre anterior e proxima.
+     *
+     * @param anterior - chave anterior (null = início da lista)
+     * @param proxima  - chave seguinte (null = fim da lista)
+     */
+    static String entre(String anterior, String proxima) {
+        if (anterior != null && proxima != null && anterior.compareTo(proxima) >= 0) {
+            throw new IllegalArgumentException("Chaves fora de ordem: " + anterior + " >= " + proxima);
+        }
+        if (anterior == null && proxima == null) {
+            return inteiro(INICIO);
+        }
+        if (proxima == null) {
+            return inteiro(valorInteiro(anterior) + 1);
+        }
+        long inteiroProxima = valorInteiro(proxima);
+        String fracaoProxima = proxima.substring(tamanhoInteiro(proxima));
+        if (anterior == null) {
+            if (!fracaoProxima.isEmpty()) {
+                return inteiroProxima > 0
+                        ? inteiro(inteiroProxima)
+                        : inteiro(0) + fracaoEntre("", fracaoProxima);
+            }
+            // O inteiro 0 nunca é usado sem fração: não haveria chave antes dele
+            return inteiroProxima > 1
+                    ? inteiro(inteiroProxima - 1)
+                    : inteiro(0) + fracaoEntre("", null);
+        }
+
+        long inteiroAnterior = valorInteiro(anterior);
+        String fracaoAnterior = anterior.substring(tamanhoInteiro(anterior));
+        if (inteiroAnterior == inteiroProxima) {
+            return inteiro(inteiroAnterior) + fracaoEntre(fracaoAnterior, fracaoProxima);
+        }
+        if (inteiroAnterior + 1 < inteiroProxima || !fracaoProxima.isEmpty()) {
+            // Há um inteiro livre entre as duas (ou o próprio inteiro de "proxima", sem fração)
+            return inteiro(inteiroAnterior + 1);
+        }
+        return inteiro(inteiroAnterior) + fracaoEntre(fracaoAnterior, null);
+    }
+
+    /**
+     * Gera quantidade chaves em ordem crescente, todas sem parte fracionária (as mais curtas possíveis).
+     */
+    static List<String> distribuir(int quantidade) {
+        List<String> chaves = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            chaves.add(inteiro(INICIO + i));
+        }
+        return chaves;
+    }
+
+    /**
+     * Ponto médio entre duas frações (sequências de dígitos lidas como 0,xxx).
+     *
+     * @param anterior - fração anterior ("" = zero)
+     * @param proxima  - fração seguinte (null = um)
+     */
+    private static String fracaoEntre(String anterior, String proxima) {
+        StringBuilder fracao = new StringBuilder();
+        String b = proxima;
+        for (int i = 0; ; i++) {
+            if (b != null && i >= b.length()) {
+                // Só acontece se "proxima" terminar em '0' (chave não gerada por esta classe)
+                throw new IllegalArgumentException("Não há chave entre as frações " + anterior + " e " + proxima);
+            }
+            int digitoA = i < anterior.length() ? valor(anterior.charAt(i)) : 0;
+            int digitoB = b == null ? BASE : valor(b.charAt(i));
+            if (digitoA == digitoB) {
+                fracao.append(DIGITOS.charAt(digitoA));
+                continue;
+            }
+            int meio = (digitoA + digitoB) / 2;
+            if (meio > digitoA) {
+                return fracao.append(DIGITOS.charAt(meio)).toString();
+            }
+            // Dígitos vizinhos (ex: "4" e "5"): fica com o de "anterior" e, a partir daqui,
+            // qualquer continuação já é menor que "proxima"
+            fracao.append(DIGITOS.charAt(digitoA));
+            b = null;
+        }
+    }
+
+    // Número -> letra do tamanho + dígitos. Ex: 5 -> "a5", 648 -> "bi0"
+    private static String inteiro(long numero) {
+        String digitos = Long.toString(numero, BASE);
+        return (char) ('a' + digitos.length() - 1) + digitos;
+    }
+
+    private static int tamanhoInteiro(String chave) {
+        char cabeca = chave.isEmpty() ? '?' : chave.charAt(0);
+        if (cabeca < 'a' || cabeca > 'z' || chave.length() < cabeca - 'a' + 2) {
+            throw new IllegalArgumentException("Chave de ordenação inválida: " + chave);
+        }
+        return cabeca - 'a' + 2;
+    }
+
+    private static long valorInteiro(String chave) {
+        String digitos = chave.substring(1, tamanhoInteiro(chave));
+        for (int i = 0; i < digitos.length(); i++) {
+            valor(digitos.charAt(i));
+        }
+        long numero = Long.parseLong(digitos, BASE);
+        if (numero == 0 && chave.length() == 2) {
+            throw new IllegalArgumentException("Chave de ordenação inválida: " + chave);
+        }
+        return numero;
+    }
+
+    private static int valor(char digito) {
+        int valor = DIGITOS.indexOf(digito);
+        if (valor < 0) {
+            throw new IllegalArgumentException("Caractere inválido em chave de ordenação: " + digito);
+        }
+        return valor;
+    }
+}
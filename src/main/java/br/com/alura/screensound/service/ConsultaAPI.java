@@ -1,42 +1,209 @@
 package br.com.alura.screensound.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import java.io.IOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Consulta informações de artistas na API pública do TheAudioDB.
+ *
+ * Proteções contra lentidão e excesso de chamadas:
+ * - Disjuntor: após FALHAS_PARA_ABRIR falhas seguidas (timeout, erro de rede, HTTP 5xx/429),
+ *   as consultas falham na hora durante TEMPO_ABERTO, sem esperar timeouts
+ * - Limitador de taxa: no máximo CONSULTAS_POR_MINUTO (cota da chave gratuita);
+ *   acima disso a consulta espera até ESPERA_MAXIMA_COTA e depois desiste
+ * - Consultas simultâneas do MESMO artista compartilham uma única chamada HTTP
+ *
+ * O endereço da API pode ser trocado com -Dscreensound.audiodb.url=http://localhost:8089
+ * (ex: para testar com um servidor local que simula lentidão ou erros).
+ *
+ * Os métodos estáticos usam uma instância padrão; os testes criam a sua própria instância
+ * (endereço, disjuntor e limitador próprios) para não dividir o estado com a aplicação.
+ */
 public class ConsultaAPI {
+
+    private static final String ENDERECO_BASE = System.getProperty(
+            "screensound.audiodb.url", "https://www.theaudiodb.com/api/v1/json/2");
+
+    private static final int FALHAS_PARA_ABRIR = 3;
+    private static final Duration TEMPO_ABERTO = Duration.ofSeconds(30);
+    private static final int CONSULTAS_POR_MINUTO = 30;
+    private static final Duration ESPERA_MAXIMA_COTA = Duration.ofSeconds(5);
+
+    // Um único HttpClient para todas as consultas (reaproveita conexões)
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.ALWAYS)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final ConsultaAPI PADRAO = new ConsultaAPI(ENDERECO_BASE,
+            new Disjuntor(FALHAS_PARA_ABRIR, TEMPO_ABERTO, Clock.systemUTC()),
+            new LimitadorTaxa(CONSULTAS_POR_MINUTO, Duration.ofMinutes(1)));
+
+    private final String enderecoBase;
+    private final Disjuntor disjuntor;
+    private final LimitadorTaxa limitador;
+
+    // Consultas em andamento, por nome normalizado do artista
+    private final ConcurrentHashMap<String, CompletableFuture<String>> emAndamento = new ConcurrentHashMap<>();
+
+    ConsultaAPI(String enderecoBase, Disjuntor disjuntor, LimitadorTaxa limitador) {
+        this.enderecoBase = enderecoBase;
+        this.disjuntor = disjuntor;
+        this.limitador = limitador;
+    }
+
     public static String obterInformacao(String nomeArtista) {
         try {
-            String artistaFormatado = nomeArtista.replace(" ", "+");
-            String endereco = "https://www.theaudiodb.com/api/v1/json/2/search.php?s=" + artistaFormatado;
+            String json = PADRAO.buscarJson(nomeArtista);
+            if (json.contains("null") || json.contains("<html>")) {
+                return "Artista não encontrado ou API indisponível no momento.";
+            }
+            return formatarResposta(json);
+        } catch (IllegalStateException e) {
+            return e.getMessage();
+        }
+    }
 
-            HttpClient client = HttpClient.newBuilder()
-                    .followRedirects(HttpClient.Redirect.ALWAYS)
-                    .connectTimeout(Duration.ofSeconds(10))
-                    .build();
-                    
-            HttpRequest request = HttpRequest.newBuilder()
+    /**
+     * Dados de um artista segundo o TheAudioDB (cada campo é null se a API não informar).
+     *
+     * @param miniatura - URL da foto do artista (strArtistThumb)
+     * @param logo - URL do logo (strArtistLogo)
+     */
+    public record DadosArtista(String genero, String pais, String miniatura, String logo) {
+    }
+
+    /**
+     * Busca gênero, país e imagens do artista (usado para enriquecer o cadastro).
+     *
+     * @return vazio se a API não conhece o artista
+     * @throws IllegalStateException se a API estiver indisponível (disjuntor, cota, rede)
+     */
+    public static Optional<DadosArtista> obterDados(String nomeArtista) {
+        String json = PADRAO.buscarJson(nomeArtista);
+        try {
+            JsonNode artista = JSON.readTree(json).path("artists").path(0);
+            if (artista.isMissingNode()) {
+                return Optional.empty();
+            }
+            return Optional.of(new DadosArtista(texto(artista, "strGenre"), texto(artista, "strCountry"),
+                    texto(artista, "strArtistThumb"), texto(artista, "strArtistLogo")));
+        } catch (JsonProcessingException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static String texto(JsonNode artista, String campo) {
+        String valor = artista.path(campo).asText(null);
+        return valor == null || valor.isBlank() ? null : valor.trim();
+    }
+
+    /**
+     * Resposta (JSON) da busca pelo artista; consultas simultâneas do mesmo artista compartilham a chamada.
+     *
+     * @throws IllegalStateException com a mensagem para o usuário, se a consulta não pôde ser feita
+     */
+    String buscarJson(String nomeArtista) {
+        String chave = nomeArtista.trim().toLowerCase(Locale.ROOT);
+        CompletableFuture<String> minha = new CompletableFuture<>();
+        CompletableFuture<String> existente = emAndamento.putIfAbsent(chave, minha);
+        if (existente != null) {
+            // Outra thread já está consultando este artista: aguarda o mesmo resultado
+            try {
+                return existente.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException causa) {
+                    throw causa;
+                }
+                if (e.getCause() instanceof Error erro) {
+                    throw erro;
+                }
+                throw e;
+            }
+        }
+        try {
+            String resultado = consultar(nomeArtista.trim());
+            minha.complete(resultado);
+            return resultado;
+        } catch (Throwable e) {
+            // Qualquer erro (inclusive Error) precisa chegar a quem espera, senão ela fica presa no join()
+            minha.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(chave, minha);
+        }
+    }
+
+    private String consultar(String nomeArtista) {
+        if (!disjuntor.permitir()) {
+            throw new IllegalStateException("API de artistas indisponível no momento (muitas falhas seguidas). Tente mais tarde.");
+        }
+        try {
+            if (!limitador.adquirir(ESPERA_MAXIMA_COTA)) {
+                disjuntor.desistir();
+                throw new IllegalStateException("Limite de consultas à API atingido. Tente novamente em instantes.");
+            }
+        } catch (InterruptedException e) {
+            disjuntor.desistir();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Consulta interrompida.");
+        }
+
+        HttpRequest request;
+        try {
+            String endereco = enderecoBase + "/search.php?s="
+                    + URLEncoder.encode(nomeArtista, StandardCharsets.UTF_8);
+            request = HttpRequest.newBuilder()
                     .uri(URI.create(endereco))
                     .header("User-Agent", "Mozilla/5.0")
                     .timeout(Duration.ofSeconds(10))
                     .build();
+        } catch (IllegalArgumentException e) {
+            // Endereço mal configurado é erro nosso, não da API: não conta como falha no disjuntor
+            disjuntor.desistir();
+            throw new IllegalStateException("Endereço da API de artistas inválido: " + enderecoBase);
+        }
 
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            
-            String json = response.body();
-            
-            if (json.contains("null") || json.contains("<html>")) {
-                return "Artista não encontrado ou API indisponível no momento.";
-            }
-            
-            return formatarResposta(json);
-            
-        } catch (Exception e) {
-            return "Não foi possível buscar informações. A funcionalidade de pesquisa externa está opcional.";
+        HttpResponse<String> response;
+        try {
+            response = CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            disjuntor.desistir();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Consulta interrompida.");
+        } catch (IOException e) {
+            disjuntor.registrarFalha();
+            throw new IllegalStateException("Não foi possível buscar informações. A funcionalidade de pesquisa externa está opcional.");
+        } catch (RuntimeException e) {
+            // Erro inesperado do cliente HTTP: a chamada liberada não pode deixar o teste do SEMI_ABERTO preso
+            disjuntor.desistir();
+            throw e;
+        }
+
+        if (response.statusCode() >= 500 || response.statusCode() == 429) {
+            disjuntor.registrarFalha();
+            throw new IllegalStateException("Artista não encontrado ou API indisponível no momento.");
         }
+        disjuntor.registrarSucesso();
+        return response.body();
     }
     
     private static String formatarResposta(String json) {
@@ -0,0 +1,117 @@
+package br.com.alura.screensound.service;
+
+import br.com.alura.screensound.model.Album;
+import br.com.alura.screensound.model.Artista;
+import br.com.alura.screensound.model.Musica;
+import br.com.alura.screensound.model.TipoArtista;
+import br.com.alura.screensound.repository.AlbumRepository;
+import br.com.alura.screensound.repository.ArtistaRepository;
+import br.com.alura.screensound.repository.MusicaRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Discografia: artista -> álbuns -> faixas.
+ *
+ * A página de um artista usa sempre o mesmo número de consultas, tenha ele 1 ou 100 álbuns:
+ * 1. o artista (as músicas dele NÃO vêm junto: Artista.musicas é LAZY)
+ * 2. os álbuns do artista (Artista.albuns)
+ * 3. a quantidade de faixas por álbum, contada pelo banco (GROUP BY), sem carregar as músicas
+ * 4. (só se as faixas forem pedidas) as faixas de TODOS os álbuns em uma consulta (Album.faixas com SUBSELECT)
+ */
+@Service
+public class DiscografiaService {
+
+    /**
+     * Página do artista.
+     *
+     * @param singles - quantidade de músicas sem álbum
+     */
+    public record Pagina(Long artistaId, String artista, TipoArtista tipo, List<AlbumResumo> albuns, long singles) {
+    }
+
+    /**
+     * Um álbum na página do artista.
+     *
+     * @param faixas - quantidade de faixas
+     * @param titulosFaixas - títulos das faixas (vazio se não foram pedidas)
+     */
+    public record AlbumResumo(Long id, String titulo, Integer ano, long faixas, List<String> titulosFaixas) {
+    }
+
+    private final ArtistaRepository artistaRepository;
+    private final AlbumRepository albumRepository;
+    private final MusicaRepository musicaRepository;
+    private final TransactionTemplate transacao;
+    private final TransactionTemplate transacaoLeitura;
+
+    public DiscografiaService(ArtistaRepository artistaRepository, AlbumRepository albumRepository,
+                              MusicaRepository musicaRepository, PlatformTransactionManager transactionManager) {
+        this.artistaRepository = artistaRepository;
+        this.albumRepository = albumRepository;
+        this.musicaRepository = musicaRepository;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+    }
+
+    /**
+     * Monta a página do artista.
+     *
+     * @param comFaixas - true para incluir os títulos das faixas de cada álbum
+     */
+    public Optional<Pagina> pagina(String nomeArtista, boolean comFaixas) {
+        return transacaoLeitura.execute(status -> artistaRepository.findByNomeIgnoreCase(nomeArtista)
+                .map(artista -> montarPagina(artista, comFaixas)));
+    }
+
+    private Pagina montarPagina(Artista artista, boolean comFaixas) {
+        Map<Long, Long> faixasPorAlbum = new HashMap<>();
+        for (Object[] linha : musicaRepository.contarPorAlbum(artista.getId())) {
+            faixasPorAlbum.put((Long) linha[0], (Long) linha[1]);
+        }
+
+        List<AlbumResumo> albuns = artista.getAlbuns().stream()
+                .map(album -> new AlbumResumo(album.getId(), album.getTitulo(), album.getAno(),
+                        faixasPorAlbum.getOrDefault(album.getId(), 0L),
+                        comFaixas ? album.getFaixas().stream().map(Musica::getTitulo).toList() : List.of()))
+                .toList();
+        return new Pagina(artista.getId(), artista.getNome(), artista.getTipo(), albuns,
+                faixasPorAlbum.getOrDefault(null, 0L));
+    }
+
+    /**
+     * Cadastra um álbum (ou usa o existente com o mesmo título) e insere as faixas nele.
+     *
+     * @return o álbum
+     */
+    public Album adicionarAlbum(Long artistaId, String titulo, Integer ano, List<String> faixas) {
+        return transacao.execute(status -> {
+            Artista artista = artistaRepository.getReferenceById(artistaId);
+            Album album = obterOuCriarAlbum(artista, titulo, ano);
+            musicaRepository.saveAll(faixas.stream()
+                    .map(faixa -> {
+                        Musica musica = new Musica(faixa, artista);
+                        musica.setAlbum(album);
+                        return musica;
+                    })
+                    .toList());
+            return album;
+        });
+    }
+
+    /**
+     * Busca o álbum do artista pelo título ou cria um novo.
+     * Deve ser chamado dentro de uma transação (ex: importação do modo lote).
+     */
+    public Album obterOuCriarAlbum(Artista artista, String titulo, Integer ano) {
+        return albumRepository.findByArtistaIdAndTituloIgnoreCase(artista.getId(), titulo)
+                .orElseGet(() -> albumRepository.save(new Album(titulo, ano, artista)));
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.alura.screensound.service;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Disjuntor (circuit breaker) para chamadas a um serviço externo.
+ *
+ * Como um disjuntor elétrico:
+ * - FECHADO: chamadas passam normalmente; falhas seguidas são contadas
+ * - ABERTO: após LIMITE_FALHAS falhas seguidas, as chamadas são recusadas na hora
+ *   (sem esperar timeouts) durante o tempo de espera
+ * - SEMI_ABERTO: passado o tempo de espera, UMA chamada de teste é liberada;
+ *   se der certo o disjuntor fecha, se falhar abre de novo
+ */
+final class Disjuntor {
+
+    enum Estado {
+        FECHADO, ABERTO, SEMI_ABERTO
+    }
+
+    private final int limiteFalhas;
+    private final Duration tempoAberto;
+    private final Clock relogio;
+
+    private Estado estado = Estado.FECHADO;
+    private int falhasSeguidas;
+    private long abertoAte;
+    private boolean testeEmAndamento;
+
+    Disjuntor(int limiteFalhas, Duration tempoAberto, Clock relogio) {
+        this.limiteFalhas = limiteFalhas;
+        this.tempoAberto = tempoAberto;
+        this.relogio = relogio;
+    }
+
+    /**
+     * Indica se a chamada pode ser feita agora.
+     * Quem recebe true DEVE depois chamar registrarSucesso(), registrarFalha() ou desistir().
+     */
+    synchronized boolean permitir() {
+        if (estado == Estado.ABERTO && relogio.millis() >= abertoAte) {
+            estado = Estado.SEMI_ABERTO;
+            testeEmAndamento = false;
+        }
+        return switch (estado) {
+            case FECHADO -> true;
+            case ABERTO -> false;
+            case SEMI_ABERTO -> {
+                if (testeEmAndamento) {
+                    yield false;
+                }
+                testeEmAndamento = true;
+                yield true;
+            }
+        };
+    }
+
+    /**
+     * A chamada liberada por permitir() acabou não sendo feita: não conta como sucesso nem falha.
+     */
+    synchronized void desistir() {
+        testeEmAndamento = false;
+    }
+
+    synchronized void registrarSucesso() {
+        estado = Estado.FECHADO;
+        falhasSeguidas = 0;
+        testeEmAndamento = false;
+    }
+
+    synchronized void registrarFalha() {
+        falhasSeguidas++;
+        if (estado == Estado.SEMI_ABERTO || falhasSeguidas >= limiteFalhas) {
+            estado = Estado.ABERTO;
+            abertoAte = relogio.millis() + tempoAberto.toMillis();
+            testeEmAndamento = false;
+        }
+    }
+
+    synchronized Estado estado() {
+        return estado;
+    }
+}
@@ -0,0 +1,203 @@
+package br.com.alura.screensound.service;
+
+import br.com.alura.screensound.model.Artista;
+import br.com.alura.screensound.model.Musica;
+import br.com.alura.screensound.model.TipoArtista;
+import br.com.alura.screensound.repository.AlbumRepository;
+import br.com.alura.screensound.repository.ArtistaRepository;
+import br.com.alura.screensound.repository.MusicaRepository;
+import br.com.alura.screensound.repository.PlaylistItemRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Exclusão em massa de artistas e músicas, com comandos DELETE por conjunto de ids.
+ *
+ * O problema do repository.delete(artista):
+ * - O CascadeType.ALL de Artista.musicas carrega TODAS as músicas do artista na memória
+ *   e executa um DELETE por música (mais um DELETE por item de playlist, se houver cascata)
+ * - Excluir o catálogo de uma gravadora inteira leva muito tempo e enche a memória
+ *
+ * Como funciona aqui:
+ * - As músicas são excluídas em lotes de TAMANHO_LOTE: lê os ids do lote, exclui os itens de
+ *   playlist e as músicas com um DELETE ... WHERE id IN (...) cada, e faz o commit
+ * - Cada lote é uma transação curta: as entidades não ficam acumuladas na memória, os bloqueios
+ *   duram pouco e o WAL do PostgreSQL é gravado aos poucos
+ * - Sem músicas, os álbuns e os artistas são excluídos, ARTISTAS_POR_LOTE artistas por transação
+ *
+ * Caches:
+ * - Comandos DELETE em massa não chamam os Entity Listeners nem atualizam o índice de busca
+ *   textual sozinhos; cada lote publica os CatalogoAlterado (um por artista afetado, não um por
+ *   música, com os títulos excluídos) e remove os documentos do índice (purge), tudo aplicado
+ *   depois do commit
+ *
+ * Se a exclusão for interrompida no meio, os lotes já gravados continuam excluídos:
+ * basta executar de novo para terminar.
+ *
+ * Os totais de reprodução (reproducoes_dia_musica/artista) não são apagados: o ranking
+ * faz JOIN com musicas e artistas, então músicas excluídas simplesmente deixam de aparecer.
+ */
+@Service
+public class ExclusaoCatalogoService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExclusaoCatalogoService.class);
+
+    // Músicas por transação (também o tamanho das listas do IN)
+    static final int TAMANHO_LOTE = 1_000;
+    private static final int ARTISTAS_POR_LOTE = 100;
+
+    /**
+     * Quantidades de registros excluídos.
+     */
+    public record Resultado(long artistas, long albuns, long musicas, long itensPlaylist) {
+
+        public static final Resultado NADA = new Resultado(0, 0, 0, 0);
+
+        Resultado somar(Resultado outro) {
+            return new Resultado(artistas + outro.artistas, albuns + outro.albuns,
+                    musicas + outro.musicas, itensPlaylist + outro.itensPlaylist);
+        }
+
+        @Override
+        public String toString() {
+            return artistas + " artistas, " + albuns + " álbuns, " + musicas + " músicas e "
+                    + itensPlaylist + " itens de playlist excluídos";
+        }
+    }
+
+    private final EntityManager entityManager;
+    private final ArtistaRepository artistaRepository;
+    private final MusicaRepository musicaRepository;
+    private final AlbumRepository albumRepository;
+    private final PlaylistItemRepository playlistItemRepository;
+    private final ApplicationEventPublisher publicador;
+    private final TransactionTemplate transacao;
+
+    public ExclusaoCatalogoService(EntityManager entityManager, ArtistaRepository artistaRepository,
+                                   MusicaRepository musicaRepository, AlbumRepository albumRepository,
+                                   PlaylistItemRepository playlistItemRepository,
+                                   ApplicationEventPublisher publicador,
+                                   PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.artistaRepository = artistaRepository;
+        this.musicaRepository = musicaRepository;
+        this.albumRepository = albumRepository;
+        this.playlistItemRepository = playlistItemRepository;
+        this.publicador = publicador;
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Exclui os artistas com suas músicas, álbuns e os itens de playlist dessas músicas.
+     * Ids que não existem são ignorados.
+     */
+    public Resultado excluirArtistas(Collection<Long> artistaIds) {
+        List<Long> ids = ordenados(artistaIds);
+        Resultado total = Resultado.NADA;
+        for (int inicio = 0; inicio < ids.size(); inicio += ARTISTAS_POR_LOTE) {
+            List<Long> lote = ids.subList(inicio, Math.min(ids.size(), inicio + ARTISTAS_POR_LOTE));
+            total = total.somar(excluirLoteArtistas(lote));
+        }
+        log.info("Exclusão em massa de {} artistas: {}", ids.size(), total);
+        return total;
+    }
+
+    /**
+     * Exclui todos os artistas do tipo (ex: todas as bandas), como em excluirArtistas().
+     */
+    public Resultado excluirArtistasPorTipo(TipoArtista tipo) {
+        return excluirArtistas(artistaRepository.listarIdsPorTipo(tipo));
+    }
+
+    /**
+     * Exclui as músicas informadas e os itens de playlist delas (artistas e álbuns continuam).
+     * Ids que não existem são ignorados.
+     */
+    public Resultado excluirMusicas(Collection<Long> musicaIds) {
+        List<Long> ids = ordenados(musicaIds);
+        Resultado total = Resultado.NADA;
+        for (int inicio = 0; inicio < ids.size(); inicio += TAMANHO_LOTE) {
+            List<Long> lote = ids.subList(inicio, Math.min(ids.size(), inicio + TAMANHO_LOTE));
+            total = total.somar(transacao.execute(status -> excluirMusicasDoLote(musicaRepository.listarArtistas(lote))));
+        }
+        log.info("Exclusão em massa de {} músicas: {}", ids.size(), total);
+        return total;
+    }
+
+    private Resultado excluirLoteArtistas(List<Long> artistaIds) {
+        Resultado total = Resultado.NADA;
+        // Sempre a primeira página: as músicas do lote anterior já não existem
+        Resultado lote;
+        do {
+            lote = transacao.execute(status -> excluirMusicasDoLote(
+                    musicaRepository.listarPorArtistas(artistaIds, PageRequest.of(0, TAMANHO_LOTE))));
+            total = total.somar(lote);
+        } while (lote.musicas() > 0);
+
+        return total.somar(transacao.execute(status -> {
+            int albuns = albumRepository.excluirPorArtistas(artistaIds);
+            int artistas = artistaRepository.excluirPorIds(artistaIds);
+            SearchIndexingPlan indice = Search.session(entityManager).indexingPlan();
+            for (Long id : artistaIds) {
+                indice.purge(Artista.class, id, null);
+                publicador.publishEvent(new CatalogoAlterado(CatalogoAlterado.Entidade.ARTISTA, id, id, true));
+            }
+            return new Resultado(artistas, albuns, 0, 0);
+        }));
+    }
+
+    /**
+     * Exclui um lote de músicas (dentro da transação de quem chama).
+     *
+     * @param linhas - [id da música, id do artista, título]
+     */
+    private Resultado excluirMusicasDoLote(List<Object[]> linhas) {
+        if (linhas.isEmpty()) {
+            return Resultado.NADA;
+        }
+        List<Long> musicaIds = linhas.stream().map(linha -> (Long) linha[0]).toList();
+        // Títulos excluídos de cada artista (o autocompletar desconta as contagens)
+        Map<Long, List<String>> titulosPorArtista = new TreeMap<>();
+        for (Object[] linha : linhas) {
+            if (linha[1] != null) {
+                List<String> titulos = titulosPorArtista.computeIfAbsent((Long) linha[1], id -> new ArrayList<>());
+                if (linha[2] != null) {
+                    titulos.add((String) linha[2]);
+                }
+            }
+        }
+        Set<Long> artistaIds = titulosPorArtista.keySet();
+        if (artistaIds.isEmpty()) {
+            return Resultado.NADA;  // músicas sem artista não entram na exclusão em massa
+        }
+
+        int itens = playlistItemRepository.excluirPorMusicas(musicaIds);
+        int musicas = musicaRepository.excluirPorIds(musicaIds, artistaIds);
+
+        SearchIndexingPlan indice = Search.session(entityManager).indexingPlan();
+        musicaIds.forEach(id -> indice.purge(Musica.class, id, null));
+        titulosPorArtista.forEach((artistaId, titulos) -> publicador.publishEvent(
+                CatalogoAlterado.musicas(null, artistaId, true, titulos)));
+        return new Resultado(0, 0, musicas, itens);
+    }
+
+    private static List<Long> ordenados(Collection<Long> ids) {
+        return ids.stream().filter(Objects::nonNull).distinct().sorted().toList();
+    }
+}
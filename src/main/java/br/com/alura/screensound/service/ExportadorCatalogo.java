@@ -0,0 +1,138 @@
+package br.com.alura.screensound.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exporta o catálogo (artistas e suas músicas) para um arquivo CSV ou JSON-lines.
+ *
+ * Por que não usar o repository (findAll)?
+ * - findAll() carrega TODAS as entidades na memória antes de escrever a primeira linha
+ * - Aqui as linhas vão do banco direto para o arquivo, com memória constante
+ *
+ * Como funciona?
+ * - CSV: usa o COPY ... TO STDOUT do PostgreSQL (CopyManager do driver pgjdbc).
+ *   O próprio banco gera o CSV e o driver apenas repassa os bytes para o arquivo.
+ * - JSON-lines: usa um cursor "forward-only" (setFetchSize com autocommit desligado),
+ *   que busca as linhas em blocos em vez de trazer o resultado inteiro.
+ * - Arquivos terminados em ".gz" são compactados com gzip durante a escrita.
+ */
+@Service
+public class ExportadorCatalogo {
+
+    /**
+     * Formatos de exportação suportados.
+     */
+    public enum Formato {
+        CSV, JSONL;
+
+        /**
+         * Descobre o formato pela extensão do arquivo (.jsonl ou .jsonl.gz = JSONL, o resto = CSV).
+         */
+        public static Formato doArquivo(Path arquivo) {
+            String nome = arquivo.getFileName().toString().toLowerCase();
+            return nome.endsWith(".jsonl") || nome.endsWith(".jsonl.gz") ? JSONL : CSV;
+        }
+    }
+
+    // Uma linha por música; artistas sem músicas aparecem com as colunas da música vazias
+    private static final String CONSULTA_CATALOGO = """
+            SELECT a.id AS artista_id, a.nome AS artista, a.tipo AS tipo,
+                   m.id AS musica_id, m.titulo AS titulo
+            FROM artistas a
+            LEFT JOIN musicas m ON m.artista_id = a.id""";
+
+    // Quantidade de linhas buscadas por vez pelo cursor
+    private static final int LINHAS_POR_BUSCA = 1_000;
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private final DataSource dataSource;
+
+    public ExportadorCatalogo(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Exporta o catálogo para o arquivo informado.
+     *
+     * @param destino - arquivo de saída (com ".gz" no final para compactar)
+     * @param formato - CSV ou JSONL
+     * @return quantidade de linhas exportadas
+     */
+    public long exportar(Path destino, Formato formato) throws IOException, SQLException {
+        try (Connection conexao = dataSource.getConnection();
+             OutputStream saida = abrirSaida(destino)) {
+            return switch (formato) {
+                case CSV -> exportarCsv(conexao, saida);
+                case JSONL -> exportarJsonLines(conexao, saida);
+            };
+        }
+    }
+
+    private long exportarCsv(Connection conexao, OutputStream saida) throws IOException, SQLException {
+        CopyManager copyManager = conexao.unwrap(PGConnection.class).getCopyAPI();
+        return copyManager.copyOut("COPY (" + CONSULTA_CATALOGO + ") TO STDOUT WITH (FORMAT csv, HEADER)", saida);
+    }
+
+    private long exportarJsonLines(Connection conexao, OutputStream saida) throws IOException, SQLException {
+        // O driver do PostgreSQL só usa cursor (busca em blocos) com autocommit desligado
+        boolean autoCommitOriginal = conexao.getAutoCommit();
+        conexao.setAutoCommit(false);
+        long linhas = 0;
+
+        try (PreparedStatement consulta = conexao.prepareStatement(CONSULTA_CATALOGO,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             JsonGenerator json = new JsonFactory().createGenerator(saida)) {
+            json.setPrettyPrinter(new MinimalPrettyPrinter(""));
+            consulta.setFetchSize(LINHAS_POR_BUSCA);
+
+            try (ResultSet resultado = consulta.executeQuery()) {
+                while (resultado.next()) {
+                    json.writeStartObject();
+                    json.writeNumberField("artista_id", resultado.getLong("artista_id"));
+                    json.writeStringField("artista", resultado.getString("artista"));
+                    json.writeStringField("tipo", resultado.getString("tipo"));
+                    long musicaId = resultado.getLong("musica_id");
+                    if (resultado.wasNull()) {
+                        json.writeNullField("musica_id");
+                    } else {
+                        json.writeNumberField("musica_id", musicaId);
+                    }
+                    json.writeStringField("titulo", resultado.getString("titulo"));
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                    linhas++;
+                }
+            }
+            conexao.commit();
+        } finally {
+            conexao.setAutoCommit(autoCommitOriginal);
+        }
+        return linhas;
+    }
+
+    private static OutputStream abrirSaida(Path destino) throws IOException {
+        OutputStream arquivo = Files.newOutputStream(destino);
+        if (destino.getFileName().toString().toLowerCase().endsWith(".gz")) {
+            arquivo = new GZIPOutputStream(arquivo, TAMANHO_BUFFER);
+        }
+        return new BufferedOutputStream(arquivo, TAMANHO_BUFFER);
+    }
+}
@@ -0,0 +1,635 @@
+package br.com.alura.screensound.service;
+
+import br.com.alura.screensound.model.Artista;
+import br.com.alura.screensound.model.Musica;
+import br.com.alura.screensound.model.TipoArtista;
+import br.com.alura.screensound.repository.ArtistaRepository;
+import br.com.alura.screensound.repository.MusicaRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fila de cadastros com gravação adiada (write-behind).
+ *
+ * Ativação: screensound.fila-cadastros.enabled=true
+ *
+ * Problema:
+ * - Cada save() do menu é um commit, e cada commit espera o PostgreSQL gravar em disco (fsync)
+ * - Uma rajada de cadastros fica limitada a "um fsync do banco por cadastro"
+ *
+ * Como funciona?
+ * 1. O cadastro é validado (nome vazio, artista duplicado, artista inexistente)
+ * 2. É gravado no DIÁRIO, um arquivo local só de acréscimos (com force(): sobrevive a uma queda)
+ * 3. Entra na fila em memória e o usuário recebe a confirmação na hora
+ *
+ * Gravação em grupo no diário (group commit):
+ * - force() custa quase o mesmo para uma linha ou para cem: cada cadastro só escreve a sua linha
+ * - A primeira thread que precisa do disco faz UM force() por todas as linhas já escritas;
+ *   quem chega durante esse force() espera e entra no force() seguinte, junto com os demais
+ * - Com muitos cadastros simultâneos, vários são confirmados pelo mesmo force()
+ * 4. Uma thread grava a fila no banco em lotes de até TAMANHO_LOTE cadastros por transação
+ *
+ * Segurança contra quedas:
+ * - Cada cadastro tem um número de sequência; a transação de cada lote também grava
+ *   na tabela cadastros_checkpoint o último número gravado
+ * - Na inicialização, os cadastros do diário com número maior que o checkpoint são
+ *   colocados de volta na fila: nada se perde e nada é gravado duas vezes
+ *
+ * Contrapressão: no máximo CAPACIDADE cadastros pendentes. Com a fila cheia, o cadastro
+ * espera até ESPERA_MAXIMA_S segundos por uma vaga e depois é recusado.
+ */
+@Service
+public class FilaCadastros {
+
+    private static final Logger log = LoggerFactory.getLogger(FilaCadastros.class);
+
+    private static final int CAPACIDADE = 10_000;
+    private static final int TAMANHO_LOTE = 500;
+    private static final long ESPERA_MAXIMA_S = 5;
+    private static final long ESPERA_LOTE_MS = 200;
+    private static final long ESPERA_FALHA_MS = 2_000;
+
+    // Acima deste tamanho, o diário é reescrito só com os cadastros ainda pendentes
+    private static final long TAMANHO_MAXIMO_DIARIO = 1024 * 1024;
+
+    private enum Operacao {
+        ARTISTA, MUSICA
+    }
+
+    /**
+     * Um cadastro pendente. Músicas referenciam o artista pelo nome (ele também pode estar na fila).
+     */
+    private record Cadastro(long sequencia, Operacao operacao, String artista, TipoArtista tipo, String titulo) {
+    }
+
+    /**
+     * Cadastros confirmados pelo mesmo force() do diário. Protegido por synchronized(FilaCadastros).
+     */
+    private static final class GrupoDisco {
+        private final List<Cadastro> cadastros = new ArrayList<>();
+        private boolean concluido;
+        private IOException erro;
+    }
+
+    private final ArtistaRepository artistaRepository;
+    private final MusicaRepository musicaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transacao;
+    private final boolean ativo;
+    private final Path arquivoDiario;
+    private final String origem;
+
+    private final BlockingQueue<Cadastro> fila = new LinkedBlockingQueue<>();
+    // Artistas na fila, ainda não gravados (chave: nome em minúsculo)
+    private final Map<String, String> artistasPendentes = new ConcurrentHashMap<>();
+
+    // Protegidos por synchronized(this): sequência e escrita no diário
+    private FileChannel diario;
+    private long ultimaSequencia;
+    // Linhas já escritas no diário, esperando o próximo force() para entrar na fila (em ordem)
+    private GrupoDisco grupoAtual = new GrupoDisco();
+    private boolean forcando;
+    // Cadastros cujo force() falhou: recusados ao usuário, só avançam o checkpoint
+    private final Set<Long> cancelados = ConcurrentHashMap.newKeySet();
+
+    private Semaphore vagas;
+    private volatile long ultimaGravada;
+    private volatile boolean executando;
+    private Thread gravador;
+
+    public FilaCadastros(ArtistaRepository artistaRepository, MusicaRepository musicaRepository,
+                         JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                         @Value("${screensound.fila-cadastros.enabled:false}") boolean ativo,
+                         @Value("${screensound.fila-cadastros.diario:cadastros.diario}") Path arquivoDiario,
+                         @Value("${screensound.fila-cadastros.origem:local}") String origem) {
+        this.artistaRepository = artistaRepository;
+        this.musicaRepository = musicaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.ativo = ativo;
+        this.arquivoDiario = arquivoDiario;
+        this.origem = origem;
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    /**
+     * Recupera os cadastros pendentes do diário e inicia a thread de gravação (daemon).
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void iniciar() throws IOException {
+        if (!ativo) {
+            return;
+        }
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS cadastros_checkpoint (
+                    origem varchar(100) PRIMARY KEY,
+                    sequencia bigint NOT NULL
+                )""");
+        long checkpoint = jdbcTemplate.query("SELECT sequencia FROM cadastros_checkpoint WHERE origem = ?",
+                        (linha, numero) -> linha.getLong(1), origem)
+                .stream().findFirst().orElse(0L);
+
+        List<Cadastro> pendentes = new ArrayList<>();
+        ultimaSequencia = checkpoint;
+        if (Files.exists(arquivoDiario)) {
+            for (Cadastro cadastro : lerDiario()) {
+                ultimaSequencia = Math.max(ultimaSequencia, cadastro.sequencia());
+                if (cadastro.sequencia() > checkpoint) {
+                    pendentes.add(cadastro);
+                }
+            }
+        }
+        ultimaGravada = checkpoint;
+
+        // Vagas podem começar negativas se o diário tiver mais pendentes que a capacidade
+        vagas = new Semaphore(CAPACIDADE - pendentes.size());
+        for (Cadastro cadastro : pendentes) {
+            marcarPendente(cadastro);
+            fila.add(cadastro);
+        }
+        if (!pendentes.isEmpty()) {
+            log.info("Fila de cadastros: {} cadastros recuperados do diário {}", pendentes.size(), arquivoDiario);
+        }
+
+        Path pasta = arquivoDiario.toAbsolutePath().getParent();
+        if (pasta != null) {
+            Files.createDirectories(pasta);
+        }
+        diario = FileChannel.open(arquivoDiario, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+
+        executando = true;
+        gravador = new Thread(this::gravarContinuamente, "screensound-fila-cadastros");
+        gravador.setDaemon(true);
+        gravador.start();
+    }
+
+    /**
+     * Para de aceitar cadastros e grava o que ainda estiver na fila.
+     */
+    @PreDestroy
+    public void parar() throws InterruptedException, IOException {
+        executando = false;
+        if (gravador != null) {
+            gravador.join(30_000);
+        }
+        synchronized (this) {
+            while (forcando) {
+                wait();
+            }
+            if (diario != null) {
+                diario.close();
+            }
+        }
+    }
+
+    /**
+     * Coloca o cadastro de um artista na fila.
+     *
+     * @return número de sequência do cadastro
+     * @throws IllegalArgumentException se o nome estiver vazio ou o artista já existir
+     * @throws IllegalStateException se a fila continuar cheia após ESPERA_MAXIMA_S segundos
+     */
+    public long cadastrarArtista(String nome, TipoArtista tipo) {
+        String nomeLimpo = exigirTexto(nome, "nome do artista");
+        if (artistaRepository.findByNomeIgnoreCase(nomeLimpo).isPresent()) {
+            throw new IllegalArgumentException("Já existe um artista com o nome '" + nomeLimpo + "' cadastrado!");
+        }
+        return enfileirar(Operacao.ARTISTA, nomeLimpo, tipo, null);
+    }
+
+    /**
+     * Coloca o cadastro de uma música na fila.
+     *
+     * @param artista - nome exato do artista (cadastrado ou ainda na fila)
+     */
+    public long cadastrarMusica(String artista, String titulo) {
+        return enfileirar(Operacao.MUSICA, exigirTexto(artista, "artista"), null, exigirTexto(titulo, "título"));
+    }
+
+    /**
+     * Nome de um artista que ainda está na fila (busca exata, sem diferenciar maiúsculas/minúsculas).
+     */
+    public Optional<String> artistaPendente(String nome) {
+        return Optional.ofNullable(artistasPendentes.get(nome.trim().toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * Quantidade de cadastros ainda não gravados no banco.
+     */
+    public long pendentes() {
+        synchronized (this) {
+            return ultimaSequencia - ultimaGravada;
+        }
+    }
+
+    /**
+     * Espera até todos os cadastros já confirmados estarem gravados no banco.
+     */
+    public void aguardarGravacao() throws InterruptedException {
+        long alvo;
+        synchronized (this) {
+            alvo = ultimaSequencia;
+        }
+        while (ultimaGravada < alvo && gravador != null && gravador.isAlive()) {
+            Thread.sleep(10);
+        }
+    }
+
+    private long enfileirar(Operacao operacao, String artista, TipoArtista tipo, String titulo) {
+        if (!ativo || !executando) {
+            throw new IllegalStateException("Fila de cadastros desativada");
+        }
+        try {
+            if (!vagas.tryAcquire(ESPERA_MAXIMA_S, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Muitos cadastros pendentes; tente novamente em instantes.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cadastro interrompido", e);
+        }
+
+        Cadastro cadastro;
+        GrupoDisco grupo;
+        try {
+            synchronized (this) {
+                // Validação e escrita no diário juntas: dois cadastros do mesmo artista não passam ao mesmo tempo
+                if (operacao == Operacao.ARTISTA && artistasPendentes.containsKey(artista.toLowerCase(Locale.ROOT))) {
+                    throw new IllegalArgumentException("Já existe um artista com o nome '" + artista + "' cadastrado!");
+                }
+                cadastro = new Cadastro(ultimaSequencia + 1, operacao, artista, tipo, titulo);
+                escreverNoDiario(cadastro);
+                ultimaSequencia = cadastro.sequencia();
+                marcarPendente(cadastro);
+                grupo = grupoAtual;
+                grupo.cadastros.add(cadastro);
+            }
+        } catch (RuntimeException e) {
+            vagas.release();
+            throw e;
+        }
+        // Só confirma o cadastro depois de ele estar no disco
+        confirmarNoDisco(grupo);
+        return cadastro.sequencia();
+    }
+
+    /**
+     * Espera o grupo do cadastro estar no disco, fazendo o force() se ninguém estiver fazendo.
+     *
+     * Quem faz o force() coloca na fila, em ordem de sequência, todos os cadastros do grupo.
+     * Se o force() falhar, os cadastros do grupo são recusados; eles ainda passam pela fila (marcados
+     * como cancelados) só para o checkpoint avançar além deles sem buracos na sequência.
+     *
+     * @throws UncheckedIOException se o force() do grupo falhou
+     */
+    private void confirmarNoDisco(GrupoDisco grupo) {
+        GrupoDisco vez;
+        FileChannel canal;
+        boolean interrompido = false;
+        synchronized (this) {
+            // Sem force() em andamento, o grupo ainda não confirmado é sempre o grupoAtual
+            while (!grupo.concluido && forcando) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    // O cadastro já está no diário e vai para a fila com o grupo: a espera continua
+                    interrompido = true;
+                }
+            }
+            if (interrompido) {
+                Thread.currentThread().interrupt();
+            }
+            if (grupo.concluido) {
+                if (grupo.erro != null) {
+                    throw new UncheckedIOException("Não foi possível gravar no diário " + arquivoDiario, grupo.erro);
+                }
+                return;
+            }
+            forcando = true;
+            vez = grupoAtual;
+            grupoAtual = new GrupoDisco();
+            canal = diario;
+        }
+
+        IOException erro = null;
+        try {
+            canal.force(false);
+        } catch (IOException e) {
+            erro = e;
+        }
+
+        synchronized (this) {
+            forcando = false;
+            vez.concluido = true;
+            vez.erro = erro;
+            if (erro != null) {
+                log.error("Falha no force() do diário {}; {} cadastros recusados", arquivoDiario,
+                        vez.cadastros.size(), erro);
+                for (Cadastro cancelado : vez.cadastros) {
+                    cancelados.add(cancelado.sequencia());
+                    if (cancelado.operacao() == Operacao.ARTISTA) {
+                        artistasPendentes.remove(cancelado.artista().toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            fila.addAll(vez.cadastros);
+            notifyAll();
+        }
+        if (erro != null) {
+            throw new UncheckedIOException("Não foi possível gravar no diário " + arquivoDiario, erro);
+        }
+    }
+
+    private void marcarPendente(Cadastro cadastro) {
+        if (cadastro.operacao() == Operacao.ARTISTA) {
+            artistasPendentes.put(cadastro.artista().toLowerCase(Locale.ROOT), cadastro.artista());
+        }
+    }
+
+    /**
+     * Laço da thread de gravação: junta até TAMANHO_LOTE cadastros e grava em uma transação.
+     *
+     * Um erro inesperado (ex: o checkpoint de um cadastro descartado recusado pelo banco) não
+     * pode matar a thread em silêncio: é registrado no log e os cadastros do lote que ainda não
+     * foram gravados são tentados de novo depois de ESPERA_FALHA_MS.
+     */
+    private void gravarContinuamente() {
+        List<Cadastro> lote = new ArrayList<>(TAMANHO_LOTE);
+        try {
+            while (executando || !fila.isEmpty() || !lote.isEmpty()) {
+                if (lote.isEmpty()) {
+                    Cadastro primeiro = fila.poll(ESPERA_LOTE_MS, TimeUnit.MILLISECONDS);
+                    if (primeiro == null) {
+                        continue;
+                    }
+                    lote.add(primeiro);
+                    fila.drainTo(lote, TAMANHO_LOTE - 1);
+                }
+                try {
+                    gravarLote(lote);
+                    lote.clear();
+                } catch (RuntimeException e) {
+                    // concluir() avança ultimaGravada em ordem: o que já passou dela está no banco
+                    long gravada = ultimaGravada;
+                    lote.removeIf(cadastro -> cadastro.sequencia() <= gravada);
+                    if (!executando) {
+                        log.error("Encerrando com {} cadastros não gravados; eles continuam no diário {}",
+                                lote.size() + fila.size(), arquivoDiario, e);
+                        return;
+                    }
+                    log.error("Falha ao gravar {} cadastros; nova tentativa em {} ms",
+                            lote.size(), ESPERA_FALHA_MS, e);
+                    Thread.sleep(ESPERA_FALHA_MS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Grava o lote inteiro em uma transação. Se falhar:
+     * - falha de conexão/banco indisponível: espera e tenta o lote de novo (nada é descartado)
+     * - erro nos dados (ex: nome repetido por outra instância): grava um cadastro por transação
+     *   e descarta, com log, apenas os que falharem
+     */
+    private void gravarLote(List<Cadastro> lote) throws InterruptedException {
+        while (true) {
+            try {
+                transacao.executeWithoutResult(status -> gravar(lote));
+                concluir(lote);
+                return;
+            } catch (RuntimeException e) {
+                if (!falhaTransitoria(e)) {
+                    break;
+                }
+                log.warn("Banco indisponível ao gravar {} cadastros ({}); nova tentativa em {} ms",
+                        lote.size(), e.getMessage(), ESPERA_FALHA_MS);
+                Thread.sleep(ESPERA_FALHA_MS);
+            }
+        }
+
+        for (Cadastro cadastro : lote) {
+            try {
+                transacao.executeWithoutResult(status -> gravar(List.of(cadastro)));
+            } catch (RuntimeException e) {
+                if (falhaTransitoria(e)) {
+                    // O banco caiu no meio: o restante volta a ser tentado como um lote
+                    gravarLote(lote.subList(lote.indexOf(cadastro), lote.size()));
+                    return;
+                }
+                log.error("Cadastro {} descartado ({} {} {}): {}", cadastro.sequencia(), cadastro.operacao(),
+                        cadastro.artista(), cadastro.titulo() == null ? "" : cadastro.titulo(), e.getMessage());
+                descartar(cadastro);
+            }
+            concluir(List.of(cadastro));
+        }
+    }
+
+    /**
+     * Avança o checkpoint além do cadastro descartado, para ele não voltar na próxima inicialização.
+     *
+     * Se nem o checkpoint puder ser gravado (erro que não é de conexão), o cadastro é descartado
+     * assim mesmo: repetir não adiantaria e travaria a fila. O próximo lote gravado avança o
+     * checkpoint por ele; no pior caso ele volta uma vez na inicialização e é descartado de novo.
+     */
+    private void descartar(Cadastro cadastro) throws InterruptedException {
+        while (true) {
+            try {
+                transacao.executeWithoutResult(status -> salvarCheckpoint(cadastro.sequencia()));
+                return;
+            } catch (RuntimeException e) {
+                if (!falhaTransitoria(e)) {
+                    log.error("Checkpoint do cadastro descartado {} não foi gravado: {}",
+                            cadastro.sequencia(), e.getMessage());
+                    return;
+                }
+                Thread.sleep(ESPERA_FALHA_MS);
+            }
+        }
+    }
+
+    private void gravar(List<Cadastro> lote) {
+        Map<String, Artista> artistas = new HashMap<>();
+        for (Cadastro cadastro : lote) {
+            if (cancelados.contains(cadastro.sequencia())) {
+                continue;
+            }
+            String chave = cadastro.artista().toLowerCase(Locale.ROOT);
+            if (cadastro.operacao() == Operacao.ARTISTA) {
+                artistas.put(chave, artistaRepository.save(new Artista(cadastro.artista(), cadastro.tipo())));
+            } else {
+                Artista artista = artistas.computeIfAbsent(chave, nome -> artistaRepository
+                        .findByNomeIgnoreCase(cadastro.artista())
+                        .orElseThrow(() -> new IllegalArgumentException("Artista não encontrado: " + cadastro.artista())));
+                musicaRepository.save(new Musica(cadastro.titulo(), artista));
+            }
+        }
+        salvarCheckpoint(lote.get(lote.size() - 1).sequencia());
+    }
+
+    // Na mesma transação do lote: o checkpoint só avança se o lote foi gravado
+    private void salvarCheckpoint(long sequencia) {
+        jdbcTemplate.update("""
+                INSERT INTO cadastros_checkpoint (origem, sequencia) VALUES (?, ?)
+                ON CONFLICT (origem) DO UPDATE SET sequencia = EXCLUDED.sequencia""", origem, sequencia);
+    }
+
+    private void concluir(List<Cadastro> gravados) {
+        for (Cadastro cadastro : gravados) {
+            // O nome de um cancelado já foi liberado (e pode estar reservado por um cadastro novo)
+            if (!cancelados.remove(cadastro.sequencia()) && cadastro.operacao() == Operacao.ARTISTA) {
+                artistasPendentes.remove(cadastro.artista().toLowerCase(Locale.ROOT));
+            }
+        }
+        ultimaGravada = gravados.get(gravados.size() - 1).sequencia();
+        vagas.release(gravados.size());
+        try {
+            compactarDiarioSeNecessario();
+        } catch (IOException e) {
+            log.warn("Não foi possível compactar o diário {}: {}", arquivoDiario, e.getMessage());
+        }
+    }
+
+    private static boolean falhaTransitoria(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    // ========== DIÁRIO ==========
+    // Uma linha por cadastro: sequencia<TAB>operacao<TAB>artista<TAB>tipo<TAB>titulo
+
+    private void escreverNoDiario(Cadastro cadastro) {
+        String linha = cadastro.sequencia() + "\t" + cadastro.operacao() + "\t" + escapar(cadastro.artista())
+                + "\t" + (cadastro.tipo() == null ? "" : cadastro.tipo().name())
+                + "\t" + escapar(cadastro.titulo()) + "\n";
+        try {
+            ByteBuffer bytes = ByteBuffer.wrap(linha.getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                diario.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível gravar no diário " + arquivoDiario, e);
+        }
+    }
+
+    private List<Cadastro> lerDiario() throws IOException {
+        List<Cadastro> cadastros = new ArrayList<>();
+        try (BufferedReader leitor = Files.newBufferedReader(arquivoDiario, StandardCharsets.UTF_8)) {
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                String[] partes = linha.split("\t", -1);
+                try {
+                    cadastros.add(new Cadastro(Long.parseLong(partes[0]), Operacao.valueOf(partes[1]),
+                            desescapar(partes[2]), partes[3].isEmpty() ? null : TipoArtista.valueOf(partes[3]),
+                            partes[4].isEmpty() ? null : desescapar(partes[4])));
+                } catch (RuntimeException e) {
+                    // Normalmente a última linha, cortada por uma queda durante a escrita (nunca foi confirmada)
+                    log.warn("Linha inválida ignorada no diário {}: {}", arquivoDiario, linha);
+                }
+            }
+        }
+        return cadastros;
+    }
+
+    /**
+     * Mantém o diário pequeno: quando passa de TAMANHO_MAXIMO_DIARIO, é reescrito só com os
+     * cadastros ainda não gravados (novo arquivo + troca atômica).
+     */
+    private void compactarDiarioSeNecessario() throws IOException {
+        synchronized (this) {
+            if (forcando || diario == null || !diario.isOpen() || diario.size() < TAMANHO_MAXIMO_DIARIO) {
+                // Durante um force() o canal não pode ser trocado: compacta no próximo lote
+                return;
+            }
+            List<Cadastro> pendentes = lerDiario().stream()
+                    .filter(cadastro -> cadastro.sequencia() > ultimaGravada)
+                    .filter(cadastro -> !cancelados.contains(cadastro.sequencia()))
+                    .toList();
+            Path temporario = arquivoDiario.resolveSibling(arquivoDiario.getFileName() + ".tmp");
+            diario.close();
+            diario = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            for (Cadastro cadastro : pendentes) {
+                escreverNoDiario(cadastro);
+            }
+            diario.force(false);
+            diario.close();
+            Files.move(temporario, arquivoDiario, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            diario = FileChannel.open(arquivoDiario, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private static String escapar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return texto.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String desescapar(String texto) {
+        StringBuilder resultado = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '\\' && i + 1 < texto.length()) {
+                char proximo = texto.charAt(++i);
+                resultado.append(switch (proximo) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> proximo;
+                });
+            } else {
+                resultado.append(c);
+            }
+        }
+        return resultado.toString();
+    }
+
+    private static String exigirTexto(String texto, String campo) {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("Informe o " + campo);
+        }
+        return texto.trim();
+    }
+}
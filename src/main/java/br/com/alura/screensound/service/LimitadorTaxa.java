@@ -0,0 +1,60 @@
+package br.com.alura.screensound.service;
+
+import java.time.Duration;
+
+/**
+ * Limitador de taxa (rate limiter) no modelo "balde de fichas" (token bucket).
+ *
+ * - O balde começa cheio com CAPACIDADE fichas
+ * - Cada chamada consome uma ficha
+ * - As fichas são repostas continuamente: capacidade fichas a cada período
+ * - Sem ficha disponível, a chamada espera até o tempo máximo informado; depois desiste
+ *
+ * Exemplo: new LimitadorTaxa(30, Duration.ofMinutes(1)) permite rajadas de até 30 chamadas
+ * e, na média, no máximo 30 chamadas por minuto.
+ */
+final class LimitadorTaxa {
+
+    private final int capacidade;
+    private final double fichasPorNano;
+
+    private double fichas;
+    private long ultimaReposicao;
+
+    LimitadorTaxa(int capacidade, Duration periodo) {
+        this.capacidade = capacidade;
+        this.fichasPorNano = (double) capacidade / periodo.toNanos();
+        this.fichas = capacidade;
+        this.ultimaReposicao = System.nanoTime();
+    }
+
+    /**
+     * Consome uma ficha, esperando no máximo o tempo informado por ela.
+     *
+     * @return true se conseguiu a ficha; false se ela não estaria disponível a tempo
+     */
+    boolean adquirir(Duration esperaMaxima) throws InterruptedException {
+        long espera;
+        synchronized (this) {
+            repor();
+            if (fichas >= 1) {
+                fichas -= 1;
+                return true;
+            }
+            espera = (long) Math.ceil((1 - fichas) / fichasPorNano);
+            if (espera > esperaMaxima.toNanos()) {
+                return false;
+            }
+            // Reserva a próxima ficha (o saldo fica negativo até ela ser reposta)
+            fichas -= 1;
+        }
+        Thread.sleep(espera / 1_000_000, (int) (espera % 1_000_000));
+        return true;
+    }
+
+    private void repor() {
+        long agora = System.nanoTime();
+        fichas = Math.min(capacidade, fichas + (agora - ultimaReposicao) * fichasPorNano);
+        ultimaReposicao = agora;
+    }
+}
@@ -0,0 +1,282 @@
+package br.com.alura.screensound.service;
+
+import br.com.alura.screensound.model.Artista;
+import br.com.alura.screensound.model.Musica;
+import br.com.alura.screensound.model.TipoArtista;
+import br.com.alura.screensound.repository.ArtistaRepository;
+import br.com.alura.screensound.repository.MusicaRepository;
+import br.com.alura.screensound.repository.MusicaSpecs;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Navegação pelo catálogo de músicas com filtros combinados e paginação.
+ *
+ * Filtros (todos opcionais, combinados com AND): tipo do artista, início do nome do artista,
+ * trecho do título, gênero e país do artista (ver MusicaSpecs).
+ *
+ * O problema do total de páginas:
+ * - Page do Spring Data faz um COUNT(*) exato a cada página, que lê a tabela (ou o índice) inteira
+ * - Em páginas profundas de um catálogo grande, o COUNT custa mais que a própria página
+ *
+ * Como o total é obtido (Contagem):
+ * - AUTOMATICA: sem filtros, usa a estimativa do PostgreSQL (pg_class.reltuples, atualizada
+ *   pelo ANALYZE/autovacuum); com filtros, não conta
+ * - EXATA: COUNT(*) com os filtros (quando o número precisa ser exato)
+ * - NENHUMA: não conta
+ *
+ * Sem contagem, a página funciona como um Slice: busca tamanho + 1 linhas e, se a linha extra
+ * vier, existe uma próxima página.
+ */
+@Service
+public class NavegacaoCatalogoService {
+
+    private static final Logger log = LoggerFactory.getLogger(NavegacaoCatalogoService.class);
+
+    public enum Contagem {
+        AUTOMATICA, EXATA, NENHUMA;
+
+        public static Contagem fromString(String texto) {
+            return switch (texto.toLowerCase(Locale.ROOT)) {
+                case "auto", "automatica" -> AUTOMATICA;
+                case "exato", "exata" -> EXATA;
+                case "nenhum", "nenhuma" -> NENHUMA;
+                default -> throw new IllegalArgumentException("Contagem inválida: " + texto + " (use auto, exato ou nenhum)");
+            };
+        }
+    }
+
+    /**
+     * Filtros da navegação; campos nulos ou vazios são ignorados.
+     */
+    public record Filtro(TipoArtista tipo, String prefixoArtista, String trechoTitulo, String genero, String pais) {
+
+        public static final Filtro NENHUM = new Filtro(null, null, null, null, null);
+
+        boolean vazio() {
+            return tipo == null && embranco(prefixoArtista) && embranco(trechoTitulo)
+                    && embranco(genero) && embranco(pais);
+        }
+
+        private static boolean embranco(String texto) {
+            return texto == null || texto.isBlank();
+        }
+
+        Specification<Musica> especificacao() {
+            return Specification.where(MusicaSpecs.tipoArtista(tipo))
+                    .and(MusicaSpecs.nomeArtistaComecaCom(prefixoArtista))
+                    .and(MusicaSpecs.tituloContem(trechoTitulo))
+                    .and(MusicaSpecs.generoArtista(genero))
+                    .and(MusicaSpecs.paisArtista(pais));
+        }
+    }
+
+    /**
+     * Uma música na navegação, com os dados do artista.
+     */
+    public record Item(Long musicaId, String titulo, String artista, TipoArtista tipo, String genero, String pais) {
+        @Override
+        public String toString() {
+            String detalhes = genero == null && pais == null ? ""
+                    : " [" + (genero == null ? "?" : genero) + ", " + (pais == null ? "?" : pais) + "]";
+            return titulo + " - " + artista + " (" + tipo + ")" + detalhes;
+        }
+    }
+
+    /**
+     * Página da navegação.
+     *
+     * @param pagina - número da página (começa em 0)
+     * @param temProxima - true se existe uma próxima página
+     * @param total - total de músicas (null = não contado)
+     * @param totalEstimado - true se o total é a estimativa do PostgreSQL
+     */
+    public record Pagina(List<Item> itens, int pagina, boolean temProxima, Long total, boolean totalEstimado) {
+    }
+
+    private final EntityManager entityManager;
+    private final MusicaRepository musicaRepository;
+    private final ArtistaRepository artistaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheArtes cacheArtes;
+    private final TransactionTemplate transacao;
+    private final TransactionTemplate transacaoLeitura;
+    private volatile boolean indicesCriados;
+
+    public NavegacaoCatalogoService(EntityManager entityManager, MusicaRepository musicaRepository,
+                                    ArtistaRepository artistaRepository, JdbcTemplate jdbcTemplate,
+                                    CacheArtes cacheArtes, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.musicaRepository = musicaRepository;
+        this.artistaRepository = artistaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheArtes = cacheArtes;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+    }
+
+    /**
+     * Índices de expressão dos filtros (não dá para declarar com @Index):
+     * - artistas_nome_prefixo: lower(nome) LIKE 'abc%'; text_pattern_ops permite usar o índice
+     *   com LIKE independentemente da collation do banco
+     * - artistas_genero_lower e artistas_pais_lower: lower(genero) = ? e lower(pais) = ?
+     *   (substituem os antigos artistas_genero e artistas_pais, nas colunas sem lower(),
+     *   que esses filtros nunca usavam)
+     *
+     * Criados na primeira navegação, e não na inicialização: assim o serviço (usado só pelo
+     * modo lote) não é criado antes do menu quando a inicialização é preguiçosa.
+     * Se a criação falhar, a próxima navegação tenta de novo.
+     */
+    private synchronized void criarIndices() {
+        if (indicesCriados) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS artistas_nome_prefixo "
+                    + "ON artistas (lower(nome) text_pattern_ops)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS artistas_genero_lower ON artistas (lower(genero))");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS artistas_pais_lower ON artistas (lower(pais))");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS artistas_genero");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS artistas_pais");
+            indicesCriados = true;
+        } catch (DataAccessException e) {
+            log.warn("Não foi possível criar os índices da navegação: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Lê uma página de músicas, ordenadas por artista e título.
+     *
+     * @param pagina - número da página (começa em 0)
+     */
+    public Pagina pagina(Filtro filtro, int pagina, int tamanho, Contagem contagem) {
+        if (pagina < 0 || tamanho < 1) {
+            throw new IllegalArgumentException("Página deve ser >= 0 e tamanho >= 1");
+        }
+        criarIndices();
+        return transacaoLeitura.execute(status -> {
+            List<Item> itens = buscar(filtro.especificacao(), pagina, tamanho);
+            boolean temProxima = itens.size() > tamanho;
+            if (temProxima) {
+                itens = itens.subList(0, tamanho);
+            }
+
+            Long total = null;
+            boolean estimado = false;
+            if (contagem == Contagem.EXATA) {
+                total = musicaRepository.count(filtro.especificacao());
+            } else if (contagem == Contagem.AUTOMATICA && filtro.vazio()) {
+                Optional<Long> estimativa = estimarTotalMusicas();
+                estimado = estimativa.isPresent();
+                total = estimativa.orElseGet(musicaRepository::count);
+            }
+            return new Pagina(itens, pagina, temProxima, total, estimado);
+        });
+    }
+
+    /**
+     * SELECT m.id, m.titulo, a.nome, a.tipo, a.genero, a.pais FROM musicas m JOIN artistas a ...
+     * WHERE (filtros) ORDER BY a.nome, m.titulo, m.id OFFSET pagina * tamanho LIMIT tamanho + 1
+     *
+     * Só as colunas exibidas (Tuple), sem montar entidades nem carregar o artista de cada música.
+     */
+    private List<Item> buscar(Specification<Musica> especificacao, int pagina, int tamanho) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> consulta = cb.createTupleQuery();
+        Root<Musica> musica = consulta.from(Musica.class);
+        Join<Musica, Artista> artista = MusicaSpecs.artista(musica);
+        Predicate filtros = especificacao.toPredicate(musica, consulta, cb);
+        if (filtros != null) {
+            consulta.where(filtros);
+        }
+        consulta.multiselect(musica.get("id"), musica.get("titulo"), artista.get("nome"), artista.get("tipo"),
+                        artista.get("genero"), artista.get("pais"))
+                .orderBy(cb.asc(artista.get("nome")), cb.asc(musica.get("titulo")), cb.asc(musica.get("id")));
+
+        return entityManager.createQuery(consulta)
+                .setFirstResult(Math.multiplyExact(pagina, tamanho))
+                .setMaxResults(tamanho + 1)
+                .getResultStream()
+                .map(linha -> new Item(linha.get(0, Long.class), linha.get(1, String.class),
+                        linha.get(2, String.class), linha.get(3, TipoArtista.class),
+                        linha.get(4, String.class), linha.get(5, String.class)))
+                .toList();
+    }
+
+    /**
+     * Quantidade aproximada de músicas segundo as estatísticas do PostgreSQL (custo constante).
+     *
+     * Se a tabela for particionada, a tabela "mãe" não tem linhas: soma as partições (pg_inherits).
+     *
+     * @return vazio se as estatísticas ainda não existem (tabela nunca analisada)
+     */
+    Optional<Long> estimarTotalMusicas() {
+        Double linhas = jdbcTemplate.queryForObject("""
+                SELECT SUM(c.reltuples) FILTER (WHERE c.reltuples >= 0)
+                FROM pg_class c
+                WHERE c.oid = 'musicas'::regclass
+                   OR c.oid IN (SELECT i.inhrelid FROM pg_inherits i WHERE i.inhparent = 'musicas'::regclass)
+                """, Double.class);
+        return linhas == null || linhas <= 0 ? Optional.empty() : Optional.of(Math.round(linhas));
+    }
+
+    /**
+     * Consulta gênero, país e imagens no TheAudioDB para artistas ainda não consultados.
+     * Cada artista é gravado na hora: uma falha no meio não perde os anteriores.
+     *
+     * @param limite - quantidade máxima de artistas nesta execução (a API tem cota por minuto)
+     * @return quantidade de artistas consultados
+     */
+    public int enriquecerArtistas(int limite) {
+        List<Artista> artistas = artistaRepository.findByEnriquecidoEmIsNullOrderById(PageRequest.of(0, limite));
+        int consultados = 0;
+        for (Artista artista : artistas) {
+            Optional<ConsultaAPI.DadosArtista> dados;
+            try {
+                dados = ConsultaAPI.obterDados(artista.getNome());
+            } catch (IllegalStateException e) {
+                // API indisponível ou cota esgotada: os demais ficam para a próxima execução
+                log.warn("Enriquecimento interrompido em {}: {}", artista.getNome(), e.getMessage());
+                break;
+            }
+            transacao.executeWithoutResult(status -> {
+                Artista atual = artistaRepository.findById(artista.getId()).orElseThrow();
+                atual.enriquecer(dados.map(ConsultaAPI.DadosArtista::genero).orElse(null),
+                        dados.map(ConsultaAPI.DadosArtista::pais).orElse(null),
+                        dados.map(ConsultaAPI.DadosArtista::miniatura).orElse(null),
+                        dados.map(ConsultaAPI.DadosArtista::logo).orElse(null));
+            });
+            // Imagens baixadas uma vez, em segundo plano, para o cache local
+            dados.ifPresent(encontrados -> {
+                cacheArtes.agendar(encontrados.miniatura());
+                cacheArtes.agendar(encontrados.logo());
+            });
+            consultados++;
+        }
+        try {
+            cacheArtes.aguardarDownloads(60_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return consultados;
+    }
+}
@@ -0,0 +1,212 @@
+package br.com.alura.screensound.service;
+
+import br.com.alura.screensound.model.Playlist;
+import br.com.alura.screensound.model.PlaylistItem;
+import br.com.alura.screensound.repository.MusicaRepository;
+import br.com.alura.screensound.repository.PlaylistItemRepository;
+import br.com.alura.screensound.repository.PlaylistRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Playlists com reordenação em tempo constante.
+ *
+ * Como a ordem é guardada?
+ * - Cada item tem uma chave de ordenação (ver ChaveOrdenacao), e não um número sequencial
+ * - Adicionar ou mover um item = gerar uma chave entre as dos novos vizinhos e gravar UMA linha
+ *
+ * Rebalanceamento:
+ * - Muitas inserções no mesmo lugar deixam as chaves daquele trecho cada vez mais longas
+ * - Quando uma chave gerada passa de TAMANHO_MAXIMO_CHAVE, a playlist fica pendente e uma
+ *   thread em segundo plano regrava as chaves da playlist inteira com valores curtos
+ * - A ordem dos itens não muda; só o texto das chaves
+ *
+ * Alterações de uma mesma playlist são serializadas pelo bloqueio da linha da playlist
+ * (PlaylistRepository.travar), para duas inserções simultâneas não gerarem a mesma chave.
+ */
+@Service
+public class PlaylistService {
+
+    private static final Logger log = LoggerFactory.getLogger(PlaylistService.class);
+
+    static final int TAMANHO_MAXIMO_CHAVE = 12;
+    private static final long INTERVALO_REBALANCEAMENTO_S = 30;
+
+    /**
+     * Um item da playlist, pronto para exibição.
+     *
+     * @param posicao - chave de ordenação; use como "depoisDe" para buscar a próxima página
+     */
+    public record Item(Long id, String posicao, Long musicaId, String titulo, String artista) {
+        @Override
+        public String toString() {
+            return "[" + id + "] " + titulo + " - " + artista;
+        }
+    }
+
+    private final PlaylistRepository playlistRepository;
+    private final PlaylistItemRepository itemRepository;
+    private final MusicaRepository musicaRepository;
+    private final TransactionTemplate transacao;
+
+    // Playlists com chaves longas, aguardando o rebalanceamento
+    private final Set<Long> pendentes = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "screensound-playlists");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PlaylistService(PlaylistRepository playlistRepository, PlaylistItemRepository itemRepository,
+                           MusicaRepository musicaRepository, PlatformTransactionManager transactionManager) {
+        this.playlistRepository = playlistRepository;
+        this.itemRepository = itemRepository;
+        this.musicaRepository = musicaRepository;
+        this.transacao = new TransactionTemplate(transactionManager);
+        agendador.scheduleWithFixedDelay(this::rebalancearPendentes,
+                INTERVALO_REBALANCEAMENTO_S, INTERVALO_REBALANCEAMENTO_S, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void parar() {
+        agendador.shutdownNow();
+    }
+
+    public Playlist criar(String nome) {
+        return playlistRepository.save(new Playlist(nome));
+    }
+
+    public Optional<Playlist> buscar(String nome) {
+        return playlistRepository.findByNomeIgnoreCase(nome);
+    }
+
+    /**
+     * Adiciona uma música ao final da playlist.
+     *
+     * @return id do item criado
+     */
+    public Long adicionar(Long playlistId, Long musicaId) {
+        if (!musicaRepository.existsById(musicaId)) {
+            throw new IllegalArgumentException("Música não encontrada: " + musicaId);
+        }
+        PlaylistItem item = transacao.execute(status -> {
+            Playlist playlist = exigirPlaylistTravada(playlistId);
+            String chave = ChaveOrdenacao.entre(itemRepository.ultimaPosicao(playlistId), null);
+            return itemRepository.save(new PlaylistItem(playlist,
+                    musicaRepository.getReferenceById(musicaId), chave));
+        });
+        verificarTamanho(playlistId, item.getPosicao());
+        return item.getId();
+    }
+
+    /**
+     * Move um item para logo depois de outro item (arrastar e soltar).
+     * Apenas a linha do item movido é alterada.
+     *
+     * @param depoisDeItemId - item que ficará antes do item movido (null = início da playlist)
+     * @return nova chave de ordenação do item
+     */
+    public String mover(Long playlistId, Long itemId, Long depoisDeItemId) {
+        if (itemId.equals(depoisDeItemId)) {
+            throw new IllegalArgumentException("Um item não pode ser movido para depois dele mesmo");
+        }
+        String chave = transacao.execute(status -> {
+            exigirPlaylistTravada(playlistId);
+            PlaylistItem item = exigirItem(playlistId, itemId);
+
+            String anterior = depoisDeItemId == null ? null : exigirItem(playlistId, depoisDeItemId).getPosicao();
+            String proxima = anterior == null
+                    ? itemRepository.primeiraPosicao(playlistId)
+                    : itemRepository.proximaPosicao(playlistId, anterior);
+            if (item.getPosicao().equals(proxima)) {
+                return item.getPosicao();  // já está no lugar
+            }
+            item.setPosicao(ChaveOrdenacao.entre(anterior, proxima));
+            return item.getPosicao();
+        });
+        verificarTamanho(playlistId, chave);
+        return chave;
+    }
+
+    /**
+     * Remove um item da playlist (os demais itens não mudam).
+     */
+    public void remover(Long playlistId, Long itemId) {
+        transacao.executeWithoutResult(status -> itemRepository.delete(exigirItem(playlistId, itemId)));
+    }
+
+    /**
+     * Lê uma página de itens em ordem, começando depois da posição informada.
+     *
+     * @param depoisDe - posição do último item da página anterior (null ou "" = primeira página)
+     */
+    public List<Item> pagina(Long playlistId, String depoisDe, int tamanho) {
+        return itemRepository.pagina(playlistId, depoisDe == null ? "" : depoisDe, PageRequest.of(0, tamanho))
+                .stream()
+                .map(linha -> new Item((Long) linha[0], (String) linha[1], (Long) linha[2],
+                        (String) linha[3], (String) linha[4]))
+                .toList();
+    }
+
+    /**
+     * Regrava as chaves de todos os itens da playlist com valores curtos, mantendo a ordem.
+     *
+     * @return quantidade de itens regravados
+     */
+    public int rebalancear(Long playlistId) {
+        pendentes.remove(playlistId);
+        Integer itens = transacao.execute(status -> {
+            exigirPlaylistTravada(playlistId);
+            List<PlaylistItem> todos = itemRepository.findByPlaylistIdOrderByPosicaoAscIdAsc(playlistId);
+            List<String> chaves = ChaveOrdenacao.distribuir(todos.size());
+            for (int i = 0; i < todos.size(); i++) {
+                todos.get(i).setPosicao(chaves.get(i));
+            }
+            return todos.size();
+        });
+        return itens == null ? 0 : itens;
+    }
+
+    private void rebalancearPendentes() {
+        for (Long playlistId : List.copyOf(pendentes)) {
+            try {
+                long inicio = System.nanoTime();
+                int itens = rebalancear(playlistId);
+                log.info("Playlist {} rebalanceada: {} itens em {} ms",
+                        playlistId, itens, (System.nanoTime() - inicio) / 1_000_000);
+            } catch (RuntimeException e) {
+                log.warn("Falha ao rebalancear a playlist {}: {}", playlistId, e.getMessage());
+            }
+        }
+    }
+
+    private void verificarTamanho(Long playlistId, String chave) {
+        if (chave != null && chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            pendentes.add(playlistId);
+        }
+    }
+
+    private Playlist exigirPlaylistTravada(Long playlistId) {
+        return playlistRepository.travar(playlistId)
+                .orElseThrow(() -> new IllegalArgumentException("Playlist não encontrada: " + playlistId));
+    }
+
+    private PlaylistItem exigirItem(Long playlistId, Long itemId) {
+        return itemRepository.findById(itemId)
+                .filter(item -> item.getPlaylist().getId().equals(playlistId))
+                .orElseThrow(() -> new IllegalArgumentException("Item " + itemId + " não pertence à playlist"));
+    }
+}
@@ -0,0 +1,506 @@
+package br.com.alura.screensound.service;
+
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registro de reproduções (plays) de músicas e ranking das mais tocadas.
+ *
+ * Ativação: screensound.reproducoes.enabled=true
+ *
+ * Caminho de uma reprodução:
+ * 1. registrar() só coloca (musicaId, instante) no BufferReproducoes, em memória: não acessa o banco
+ * 2. Uma thread de gravação drena o buffer em lotes de até LOTE_MAXIMO e, em UMA transação:
+ *    - copia o lote para a tabela reproducoes com COPY (bem mais rápido que INSERTs)
+ *    - soma o lote nos contadores diários por música e por artista (INSERT ... ON CONFLICT)
+ * 3. Os rankings leem só os contadores diários: nunca varrem as reproduções brutas
+ *
+ * Tabelas (criadas na inicialização, fora do Hibernate):
+ * - reproducoes: só recebe INSERTs; particionada por dia (reproducoes_AAAAMMDD), o que permite
+ *   apagar dias antigos com um DROP TABLE da partição em vez de um DELETE enorme
+ *   - antes de cada lote são criadas as partições de todos os dias presentes nele (inclusive
+ *     dias passados, como os do bench-plays ou de uma carga retroativa)
+ *   - não há partição DEFAULT: uma linha nela escaparia do DROP TABLE por dia e obrigaria o
+ *     PostgreSQL a varrê-la a cada CREATE de partição. Uma reproducoes_padrao de versões
+ *     anteriores é removida na inicialização se estiver vazia; senão fica e gera um alerta no log
+ * - reproducoes_dia_musica (dia, musica_id, total) e reproducoes_dia_artista (dia, artista_id, total)
+ */
+@Service
+public class ReproducoesService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReproducoesService.class);
+
+    /**
+     * Período do ranking: o dia informado ou os 7 dias terminando nele.
+     */
+    public enum Periodo {
+        DIA(1), SEMANA(7);
+
+        private final int dias;
+
+        Periodo(int dias) {
+            this.dias = dias;
+        }
+
+        public static Periodo fromString(String texto) {
+            return switch (texto.toLowerCase()) {
+                case "dia", "hoje" -> DIA;
+                case "semana" -> SEMANA;
+                default -> throw new IllegalArgumentException("Período inválido: " + texto + " (use dia ou semana)");
+            };
+        }
+    }
+
+    /**
+     * Uma música no ranking.
+     */
+    public record MusicaTocada(Long id, String titulo, String artista, long reproducoes) {
+        @Override
+        public String toString() {
+            return reproducoes + "x - " + titulo + " - " + artista;
+        }
+    }
+
+    /**
+     * Um artista no ranking.
+     */
+    public record ArtistaTocado(Long id, String nome, long reproducoes) {
+        @Override
+        public String toString() {
+            return reproducoes + "x - " + nome;
+        }
+    }
+
+    private static final int CAPACIDADE_BUFFER = 64 * 1024;
+    private static final int LOTE_MAXIMO = 10_000;
+    private static final long ESPERA_MS = 200;
+    private static final int TENTATIVAS = 5;
+    private static final long ESPERA_FALHA_MS = 1_000;
+
+    // Partições criadas com antecedência (hoje + DIAS_A_FRENTE)
+    private static final int DIAS_A_FRENTE = 7;
+    private static final DateTimeFormatter SUFIXO_PARTICAO = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String PARTICAO_PADRAO = "reproducoes_padrao";
+    // CREATE de partição recusado porque a partição padrão já tem linhas desse dia
+    private static final String VIOLA_RESTRICAO = "23514";
+
+    private static final String[] CRIAR_TABELAS = {
+            """
+            CREATE TABLE IF NOT EXISTS reproducoes (
+                musica_id bigint NOT NULL,
+                tocada_em timestamptz NOT NULL
+            ) PARTITION BY RANGE (tocada_em)""",
+            """
+            CREATE TABLE IF NOT EXISTS reproducoes_dia_musica (
+                dia date NOT NULL,
+                musica_id bigint NOT NULL,
+                total bigint NOT NULL,
+                PRIMARY KEY (dia, musica_id)
+            )""",
+            "CREATE INDEX IF NOT EXISTS reproducoes_dia_musica_ranking ON reproducoes_dia_musica (dia, total DESC)",
+            """
+            CREATE TABLE IF NOT EXISTS reproducoes_dia_artista (
+                dia date NOT NULL,
+                artista_id bigint NOT NULL,
+                total bigint NOT NULL,
+                PRIMARY KEY (dia, artista_id)
+            )""",
+            "CREATE INDEX IF NOT EXISTS reproducoes_dia_artista_ranking ON reproducoes_dia_artista (dia, total DESC)"
+    };
+
+    // unnest() transforma os arrays do lote em linhas: uma única instrução para o lote inteiro
+    private static final String SOMAR_MUSICAS = """
+            INSERT INTO reproducoes_dia_musica AS r (dia, musica_id, total)
+            SELECT * FROM unnest(?::date[], ?::bigint[], ?::bigint[])
+            ON CONFLICT (dia, musica_id) DO UPDATE SET total = r.total + EXCLUDED.total""";
+
+    private static final String SOMAR_ARTISTAS = """
+            INSERT INTO reproducoes_dia_artista AS r (dia, artista_id, total)
+            SELECT v.dia, m.artista_id, SUM(v.total)
+            FROM unnest(?::date[], ?::bigint[], ?::bigint[]) AS v(dia, musica_id, total)
+            JOIN musicas m ON m.id = v.musica_id
+            GROUP BY v.dia, m.artista_id
+            ORDER BY v.dia, m.artista_id
+            ON CONFLICT (dia, artista_id) DO UPDATE SET total = r.total + EXCLUDED.total""";
+
+    private static final String RANKING_MUSICAS = """
+            SELECT r.musica_id, m.titulo, a.nome, SUM(r.total) AS total
+            FROM reproducoes_dia_musica r
+            JOIN musicas m ON m.id = r.musica_id
+            JOIN artistas a ON a.id = m.artista_id
+            WHERE r.dia BETWEEN ? AND ?
+            GROUP BY r.musica_id, m.titulo, a.nome
+            ORDER BY total DESC, r.musica_id
+            LIMIT ?""";
+
+    private static final String RANKING_ARTISTAS = """
+            SELECT r.artista_id, a.nome, SUM(r.total) AS total
+            FROM reproducoes_dia_artista r
+            JOIN artistas a ON a.id = r.artista_id
+            WHERE r.dia BETWEEN ? AND ?
+            GROUP BY r.artista_id, a.nome
+            ORDER BY total DESC, r.artista_id
+            LIMIT ?""";
+
+    // Chave dos contadores de um lote; a ordem (dia, música) é a mesma da chave primária
+    private record ChaveDia(LocalDate dia, long musicaId) {
+    }
+
+    private static final Comparator<ChaveDia> ORDEM_CHAVE = Comparator
+            .comparing(ChaveDia::dia).thenComparingLong(ChaveDia::musicaId);
+
+    private final DataSource dataSource;
+    private final boolean ativo;
+    private final ZoneId fuso = ZoneId.systemDefault();
+    private final BufferReproducoes buffer = new BufferReproducoes(CAPACIDADE_BUFFER);
+
+    // Aceitas no buffer x já processadas (gravadas ou descartadas após TENTATIVAS falhas)
+    private final AtomicLong aceitas = new AtomicLong();
+    private final AtomicLong processadas = new AtomicLong();
+    private final AtomicLong descartadas = new AtomicLong();
+
+    private volatile boolean executando;
+    private Thread gravador;
+    private LocalDate particoesGarantidasEm;
+    // Dias com partição criada (ou já existente); só a thread de gravação mexe depois de iniciar()
+    private final Set<LocalDate> particoes = new HashSet<>();
+    private boolean particaoPadrao;
+
+    public ReproducoesService(DataSource dataSource,
+                              @Value("${screensound.reproducoes.enabled:false}") boolean ativo) {
+        this.dataSource = dataSource;
+        this.ativo = ativo;
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    /**
+     * Cria as tabelas/partições e inicia a thread de gravação (daemon).
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void iniciar() throws SQLException {
+        if (!ativo) {
+            return;
+        }
+        try (Connection conexao = dataSource.getConnection();
+             Statement ddl = conexao.createStatement()) {
+            for (String comando : CRIAR_TABELAS) {
+                ddl.execute(comando);
+            }
+            verificarParticaoPadrao(ddl);
+        }
+        garantirParticoes();
+
+        executando = true;
+        gravador = new Thread(this::gravarContinuamente, "screensound-reproducoes");
+        gravador.setDaemon(true);
+        gravador.start();
+    }
+
+    /**
+     * Para de aceitar novas reproduções e grava o que ainda estiver no buffer.
+     */
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        buffer.fechar();
+        executando = false;
+        if (gravador != null) {
+            gravador.join(30_000);
+        }
+    }
+
+    /**
+     * Registra uma reprodução agora.
+     */
+    public void registrar(long musicaId) throws InterruptedException {
+        registrar(musicaId, Instant.now());
+    }
+
+    /**
+     * Registra uma reprodução no instante informado.
+     * Só espera se o buffer estiver cheio (banco atrasado); normalmente retorna na hora.
+     *
+     * @throws IllegalStateException se chamado depois de parar() (ninguém mais gravaria a reprodução)
+     */
+    public void registrar(long musicaId, Instant instante) throws InterruptedException {
+        if (!ativo) {
+            return;
+        }
+        buffer.registrar(musicaId, instante.toEpochMilli());
+        aceitas.incrementAndGet();
+    }
+
+    /**
+     * Espera até todas as reproduções já registradas terem sido gravadas (ou descartadas).
+     *
+     * @return quantidade de reproduções descartadas até agora por falhas de gravação
+     */
+    public long aguardarGravacao() throws InterruptedException {
+        long alvo = aceitas.get();
+        while (processadas.get() < alvo && gravador != null && gravador.isAlive()) {
+            Thread.sleep(10);
+        }
+        return descartadas.get();
+    }
+
+    /**
+     * Músicas mais tocadas no período terminando na data informada.
+     */
+    public List<MusicaTocada> maisTocadas(Periodo periodo, LocalDate data, int limite) throws SQLException {
+        try (Connection conexao = dataSource.getConnection();
+             PreparedStatement consulta = prepararRanking(conexao, RANKING_MUSICAS, periodo, data, limite);
+             ResultSet resultado = consulta.executeQuery()) {
+            List<MusicaTocada> ranking = new ArrayList<>();
+            while (resultado.next()) {
+                ranking.add(new MusicaTocada(resultado.getLong(1), resultado.getString(2),
+                        resultado.getString(3), resultado.getLong(4)));
+            }
+            return ranking;
+        }
+    }
+
+    /**
+     * Artistas mais tocados no período terminando na data informada.
+     */
+    public List<ArtistaTocado> artistasMaisTocados(Periodo periodo, LocalDate data, int limite) throws SQLException {
+        try (Connection conexao = dataSource.getConnection();
+             PreparedStatement consulta = prepararRanking(conexao, RANKING_ARTISTAS, periodo, data, limite);
+             ResultSet resultado = consulta.executeQuery()) {
+            List<ArtistaTocado> ranking = new ArrayList<>();
+            while (resultado.next()) {
+                ranking.add(new ArtistaTocado(resultado.getLong(1), resultado.getString(2), resultado.getLong(3)));
+            }
+            return ranking;
+        }
+    }
+
+    private static PreparedStatement prepararRanking(Connection conexao, String sql, Periodo periodo,
+                                                     LocalDate data, int limite) throws SQLException {
+        PreparedStatement consulta = conexao.prepareStatement(sql);
+        consulta.setObject(1, data.minusDays(periodo.dias - 1L));
+        consulta.setObject(2, data);
+        consulta.setInt(3, limite);
+        return consulta;
+    }
+
+    /**
+     * Laço da thread de gravação.
+     *
+     * Enquanto um lote é gravado, novas reproduções se acumulam no buffer: quanto mais carga,
+     * maiores os lotes (até LOTE_MAXIMO) e menor o custo por reprodução.
+     */
+    private void gravarContinuamente() {
+        long[] musicas = new long[LOTE_MAXIMO];
+        long[] instantes = new long[LOTE_MAXIMO];
+        try {
+            while (executando || buffer.quantidade() > 0) {
+                int quantidade = buffer.drenar(musicas, instantes, ESPERA_MS);
+                if (quantidade > 0) {
+                    gravarComRetentativa(musicas, instantes, quantidade);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void gravarComRetentativa(long[] musicas, long[] instantes, int quantidade) throws InterruptedException {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                if (!LocalDate.now(fuso).equals(particoesGarantidasEm)) {
+                    garantirParticoes();
+                }
+                criarParticoes(diasDoLote(instantes, quantidade));
+                gravarLote(musicas, instantes, quantidade);
+                processadas.addAndGet(quantidade);
+                return;
+            } catch (SQLException | RuntimeException e) {
+                // RuntimeException também (ex: driver, pool de conexões): a thread de gravação não pode morrer
+                if (tentativa == TENTATIVAS) {
+                    log.error("Descartando {} reproduções após {} tentativas: {}", quantidade, TENTATIVAS, e.getMessage(), e);
+                    descartadas.addAndGet(quantidade);
+                    processadas.addAndGet(quantidade);
+                    return;
+                }
+                log.warn("Falha ao gravar {} reproduções ({}); nova tentativa em {} ms",
+                        quantidade, e.getMessage(), ESPERA_FALHA_MS);
+                Thread.sleep(ESPERA_FALHA_MS);
+            }
+        }
+    }
+
+    /**
+     * Grava um lote: COPY das reproduções brutas + soma nos contadores, tudo na mesma transação
+     * (ou o lote inteiro entra nos contadores e na tabela bruta, ou nada entra).
+     */
+    private void gravarLote(long[] musicas, long[] instantes, int quantidade) throws SQLException {
+        // Texto no formato do COPY: musica_id<TAB>tocada_em<NL>
+        StringBuilder linhas = new StringBuilder(quantidade * 40);
+        Map<ChaveDia, long[]> contadores = new HashMap<>();
+        for (int i = 0; i < quantidade; i++) {
+            Instant instante = Instant.ofEpochMilli(instantes[i]);
+            linhas.append(musicas[i]).append('\t').append(instante).append('\n');
+            contadores.computeIfAbsent(new ChaveDia(LocalDate.ofInstant(instante, fuso), musicas[i]),
+                    chave -> new long[1])[0]++;
+        }
+
+        // Mesma ordem da chave primária em todas as instâncias: evita deadlock entre upserts simultâneos
+        List<ChaveDia> chaves = new ArrayList<>(contadores.keySet());
+        chaves.sort(ORDEM_CHAVE);
+        String[] dias = new String[chaves.size()];
+        Long[] ids = new Long[chaves.size()];
+        Long[] totais = new Long[chaves.size()];
+        for (int i = 0; i < chaves.size(); i++) {
+            ChaveDia chave = chaves.get(i);
+            dias[i] = chave.dia().toString();
+            ids[i] = chave.musicaId();
+            totais[i] = contadores.get(chave)[0];
+        }
+
+        try (Connection conexao = dataSource.getConnection()) {
+            conexao.setAutoCommit(false);
+            try {
+                byte[] bytes = linhas.toString().getBytes(StandardCharsets.UTF_8);
+                CopyIn copia = conexao.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn("COPY reproducoes (musica_id, tocada_em) FROM STDIN");
+                copia.writeToCopy(bytes, 0, bytes.length);
+                copia.endCopy();
+
+                for (String sql : new String[]{SOMAR_MUSICAS, SOMAR_ARTISTAS}) {
+                    try (PreparedStatement soma = conexao.prepareStatement(sql)) {
+                        soma.setArray(1, conexao.createArrayOf("text", dias));
+                        soma.setArray(2, conexao.createArrayOf("int8", ids));
+                        soma.setArray(3, conexao.createArrayOf("int8", totais));
+                        soma.executeUpdate();
+                    }
+                }
+                conexao.commit();
+            } catch (SQLException | RuntimeException e) {
+                conexao.rollback();
+                throw e;
+            } finally {
+                conexao.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Cria as partições diárias de hoje até hoje + DIAS_A_FRENTE.
+     * Chamado na inicialização e na primeira gravação de cada dia.
+     */
+    private void garantirParticoes() throws SQLException {
+        LocalDate hoje = LocalDate.now(fuso);
+        List<LocalDate> dias = new ArrayList<>();
+        for (int i = 0; i <= DIAS_A_FRENTE; i++) {
+            dias.add(hoje.plusDays(i));
+        }
+        criarParticoes(dias);
+        particoesGarantidasEm = hoje;
+    }
+
+    private Set<LocalDate> diasDoLote(long[] instantes, int quantidade) {
+        Set<LocalDate> dias = new TreeSet<>();
+        for (int i = 0; i < quantidade; i++) {
+            dias.add(LocalDate.ofInstant(Instant.ofEpochMilli(instantes[i]), fuso));
+        }
+        return dias;
+    }
+
+    /**
+     * Cria as partições dos dias informados que ainda não foram criadas por esta instância
+     * (as que já existem no banco são ignoradas pelo IF NOT EXISTS).
+     */
+    private void criarParticoes(Iterable<LocalDate> dias) throws SQLException {
+        Connection conexao = null;
+        try {
+            for (LocalDate dia : dias) {
+                if (particoes.contains(dia)) {
+                    continue;
+                }
+                if (conexao == null) {
+                    conexao = dataSource.getConnection();
+                }
+                try (Statement ddl = conexao.createStatement()) {
+                    ddl.execute("CREATE TABLE IF NOT EXISTS reproducoes_" + dia.format(SUFIXO_PARTICAO)
+                            + " PARTITION OF reproducoes FOR VALUES FROM ('" + limite(dia)
+                            + "') TO ('" + limite(dia.plusDays(1)) + "')");
+                } catch (SQLException e) {
+                    if (!particaoPadrao || !VIOLA_RESTRICAO.equals(e.getSQLState())) {
+                        throw e;
+                    }
+                    // A partição padrão antiga já tem linhas deste dia: as novas vão para ela também
+                    log.warn("Sem partição para {}: as reproduções desse dia vão para {} e não "
+                            + "serão apagadas com a partição do dia", dia, PARTICAO_PADRAO);
+                }
+                particoes.add(dia);
+            }
+        } finally {
+            if (conexao != null) {
+                conexao.close();
+            }
+        }
+    }
+
+    /**
+     * Remove a partição DEFAULT criada por versões anteriores, se estiver vazia.
+     * Com linhas, ela não pode ser removida sem perder reproduções: só registra um alerta.
+     */
+    private void verificarParticaoPadrao(Statement ddl) throws SQLException {
+        try (ResultSet existe = ddl.executeQuery("SELECT to_regclass('" + PARTICAO_PADRAO + "') IS NOT NULL")) {
+            existe.next();
+            particaoPadrao = existe.getBoolean(1);
+        }
+        if (!particaoPadrao) {
+            return;
+        }
+        boolean vazia;
+        try (ResultSet linha = ddl.executeQuery("SELECT NOT EXISTS (SELECT 1 FROM " + PARTICAO_PADRAO + ")")) {
+            linha.next();
+            vazia = linha.getBoolean(1);
+        }
+        if (vazia) {
+            ddl.execute("DROP TABLE " + PARTICAO_PADRAO);
+            particaoPadrao = false;
+            log.info("Partição padrão {} (vazia) removida", PARTICAO_PADRAO);
+        } else {
+            log.warn("A partição padrão {} tem reproduções fora das partições diárias: elas não são "
+                    + "apagadas com o DROP TABLE de cada dia. Mova-as para as partições do dia e "
+                    + "remova {}", PARTICAO_PADRAO, PARTICAO_PADRAO);
+        }
+    }
+
+    // Início do dia no fuso da aplicação, com o deslocamento explícito (ex: 2024-05-01T00:00-03:00)
+    private String limite(LocalDate dia) {
+        return dia.atStartOfDay(fuso).toOffsetDateTime().toString();
+    }
+}
@@ -0,0 +1,256 @@
+package br.com.alura.screensound.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Servidor HTTP mínimo das imagens do CacheArtes (ativado junto com screensound.artes.enabled).
+ *
+ * Rotas (GET e HEAD):
+ * - /artes/{hash}.{extensao} - o arquivo do cache. Como o nome é o hash do conteúdo, ele nunca muda:
+ *   Cache-Control "immutable" por um ano e ETag = hash (If-None-Match igual responde 304, sem corpo)
+ * - /artistas/{id}/miniatura e /artistas/{id}/logo - redireciona (302) para /artes/... se a imagem
+ *   já estiver no cache; senão, agenda o download e redireciona para o endereço original
+ *
+ * Cópia zero: o corpo é enviado com FileChannel.transferTo, que pede ao sistema operacional
+ * para copiar do arquivo direto para o socket (sendfile no Linux), sem passar os bytes pela JVM.
+ *
+ * Uma conexão por requisição (Connection: close); as conexões são atendidas por THREADS threads.
+ */
+@Service
+public class ServidorArtes {
+
+    private static final Logger log = LoggerFactory.getLogger(ServidorArtes.class);
+
+    private static final int THREADS = 4;
+    private static final int TAMANHO_MAXIMO_CABECALHO = 8 * 1024;
+    private static final int TEMPO_LEITURA_MS = 10_000;
+    private static final String CACHE_IMUTAVEL = "public, max-age=31536000, immutable";
+    // O redirecionamento muda quando a imagem entra (ou sai) do cache
+    private static final String CACHE_REDIRECIONAMENTO = "public, max-age=300";
+
+    private static final Pattern ROTA_ARTE = Pattern.compile("/artes/([^/]+)");
+    private static final Pattern ROTA_ARTISTA = Pattern.compile("/artistas/(\\d{1,18})/(miniatura|logo)");
+
+    private final CacheArtes cache;
+    private final JdbcTemplate jdbcTemplate;
+    private final String endereco;
+    private final int porta;
+
+    private final ExecutorService atendentes = Executors.newFixedThreadPool(THREADS, tarefa -> {
+        Thread thread = new Thread(tarefa, "screensound-servidor-artes");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ServerSocketChannel servidor;
+
+    public ServidorArtes(CacheArtes cache, JdbcTemplate jdbcTemplate,
+                         @Value("${screensound.artes.endereco:127.0.0.1}") String endereco,
+                         @Value("${screensound.artes.porta:8090}") int porta) {
+        this.cache = cache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.endereco = endereco;
+        this.porta = porta;
+    }
+
+    @EventListener(value = ApplicationStartedEvent.class,
+            condition = "@environment.getProperty('screensound.artes.enabled', T(Boolean), false)")
+    public void iniciar() throws IOException {
+        if (!cache.isAtivo()) {
+            return;
+        }
+        servidor = ServerSocketChannel.open();
+        servidor.bind(new InetSocketAddress(endereco, porta));
+        Thread aceitador = new Thread(this::aceitarConexoes, "screensound-servidor-artes-aceite");
+        aceitador.setDaemon(true);
+        aceitador.start();
+        log.info("Imagens dos artistas em http://{}:{}/artistas/<id>/miniatura", endereco, porta);
+    }
+
+    @PreDestroy
+    public void parar() throws IOException {
+        if (servidor != null) {
+            servidor.close();
+        }
+        atendentes.shutdownNow();
+    }
+
+    private void aceitarConexoes() {
+        while (servidor.isOpen()) {
+            try {
+                SocketChannel conexao = servidor.accept();
+                try {
+                    atendentes.execute(() -> atender(conexao));
+                } catch (RejectedExecutionException e) {
+                    conexao.close();
+                }
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Falha ao aceitar conexão: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void atender(SocketChannel conexao) {
+        try (conexao) {
+            Optional<List<String>> requisicao = lerCabecalho(conexao);
+            if (requisicao.isEmpty()) {
+                responder(conexao, 400, "Bad Request", "");
+                return;
+            }
+            String[] linha = requisicao.get().get(0).split(" ");
+            String metodo = linha[0];
+            if (linha.length != 3 || !(metodo.equals("GET") || metodo.equals("HEAD"))) {
+                responder(conexao, 405, "Method Not Allowed", "Allow: GET, HEAD\r\n");
+                return;
+            }
+            String caminho = linha[1].split("\\?", 2)[0];
+            boolean comCorpo = metodo.equals("GET");
+
+            Matcher arte = ROTA_ARTE.matcher(caminho);
+            Matcher artista = ROTA_ARTISTA.matcher(caminho);
+            if (arte.matches()) {
+                enviarArquivo(conexao, arte.group(1), cabecalho(requisicao.get(), "if-none-match"), comCorpo);
+            } else if (artista.matches()) {
+                redirecionar(conexao, Long.parseLong(artista.group(1)), artista.group(2));
+            } else {
+                responder(conexao, 404, "Not Found", "");
+            }
+        } catch (IOException e) {
+            log.debug("Conexão encerrada: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Erro ao atender requisição de imagem: {}", e.getMessage());
+        }
+    }
+
+    private void enviarArquivo(SocketChannel conexao, String nome, String seNenhumIgual, boolean comCorpo)
+            throws IOException {
+        // Já aberto pelo cache: uma limpeza do LRU logo depois não apaga o arquivo debaixo da resposta
+        Optional<FileChannel> arquivo = cache.abrir(nome);
+        if (arquivo.isEmpty()) {
+            responder(conexao, 404, "Not Found", "");
+            return;
+        }
+        try (FileChannel canal = arquivo.get()) {
+            String etag = "\"" + nome.substring(0, nome.indexOf('.')) + "\"";
+            String cabecalhoCache = "ETag: " + etag + "\r\nCache-Control: " + CACHE_IMUTAVEL + "\r\n";
+            if (seNenhumIgual != null && (seNenhumIgual.contains(etag) || seNenhumIgual.trim().equals("*"))) {
+                responder(conexao, 304, "Not Modified", cabecalhoCache);
+                return;
+            }
+
+            long tamanho = canal.size();
+            escrever(conexao, "HTTP/1.1 200 OK\r\n"
+                    + "Content-Type: " + CacheArtes.tipoConteudo(nome) + "\r\n"
+                    + "Content-Length: " + tamanho + "\r\n"
+                    + cabecalhoCache
+                    + "Connection: close\r\n\r\n");
+            if (comCorpo) {
+                long enviados = 0;
+                while (enviados < tamanho) {
+                    enviados += canal.transferTo(enviados, tamanho - enviados, conexao);
+                }
+            }
+        }
+    }
+
+    private void redirecionar(SocketChannel conexao, long artistaId, String tipo) throws IOException {
+        String coluna = tipo.equals("logo") ? "url_logo" : "url_miniatura";
+        Optional<String> url = jdbcTemplate.queryForList(
+                        "SELECT " + coluna + " FROM artistas WHERE id = ?", String.class, artistaId)
+                .stream()
+                .filter(valor -> valor != null && !valor.isBlank())
+                .filter(valor -> valor.indexOf('\r') < 0 && valor.indexOf('\n') < 0)  // vai no cabeçalho Location
+                .findFirst();
+        if (url.isEmpty()) {
+            responder(conexao, 404, "Not Found", "");
+            return;
+        }
+
+        Optional<String> local = cache.arquivoDaUrl(url.get());
+        if (local.isPresent()) {
+            responder(conexao, 302, "Found",
+                    "Location: /artes/" + local.get() + "\r\nCache-Control: " + CACHE_REDIRECIONAMENTO + "\r\n");
+        } else {
+            // Primeira visualização (ou removida pelo LRU): a próxima já vem do cache
+            cache.agendar(url.get());
+            responder(conexao, 302, "Found", "Location: " + url.get() + "\r\nCache-Control: no-store\r\n");
+        }
+    }
+
+    /**
+     * Lê a linha de requisição e os cabeçalhos (até a linha em branco).
+     *
+     * @return vazio se a requisição for inválida ou grande demais
+     */
+    private static Optional<List<String>> lerCabecalho(SocketChannel conexao) throws IOException {
+        // O InputStream do socket respeita o tempo máximo de leitura (o canal em si não)
+        conexao.socket().setSoTimeout(TEMPO_LEITURA_MS);
+        InputStream entrada = conexao.socket().getInputStream();
+        byte[] buffer = new byte[TAMANHO_MAXIMO_CABECALHO];
+        int lidos = 0;
+        while (lidos < buffer.length) {
+            int n = entrada.read(buffer, lidos, buffer.length - lidos);
+            if (n < 0) {
+                return Optional.empty();
+            }
+            lidos += n;
+            String texto = new String(buffer, 0, lidos, StandardCharsets.ISO_8859_1);
+            int fim = texto.indexOf("\r\n\r\n");
+            if (fim >= 0) {
+                return Optional.of(List.of(texto.substring(0, fim).split("\r\n")));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static String cabecalho(List<String> requisicao, String nome) {
+        for (String linha : requisicao.subList(1, requisicao.size())) {
+            int doisPontos = linha.indexOf(':');
+            if (doisPontos > 0 && linha.substring(0, doisPontos).trim().toLowerCase(Locale.ROOT).equals(nome)) {
+                return linha.substring(doisPontos + 1).trim();
+            }
+        }
+        return null;
+    }
+
+    private static void responder(SocketChannel conexao, int status, String motivo, String cabecalhos)
+            throws IOException {
+        escrever(conexao, "HTTP/1.1 " + status + " " + motivo + "\r\n"
+                + cabecalhos
+                + "Content-Length: 0\r\n"
+                + "Connection: close\r\n\r\n");
+    }
+
+    private static void escrever(SocketChannel conexao, String texto) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(texto.getBytes(StandardCharsets.ISO_8859_1));
+        while (bytes.hasRemaining()) {
+            conexao.write(bytes);
+        }
+    }
+}
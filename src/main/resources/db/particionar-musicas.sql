@@ -0,0 +1,103 @@
+-- =====================================================================
+-- Migração: tabela musicas -> tabela particionada por HASH(artista_id)
+-- =====================================================================
+--
+-- Por quê?
+-- - Com milhões de músicas em uma única tabela, VACUUM e manutenção de índices
+--   passam a ser operações enormes
+-- - Com 16 partições, cada uma é uma tabela menor, com seus próprios índices e VACUUM
+-- - As consultas por artista (findByArtista, WHERE artista_id = ?) leem só UMA partição
+--
+-- Como rodar (com a aplicação parada):
+--   psql -h localhost -p 5433 -U postgres -d alura_musicas -f particionar-musicas.sql
+--
+-- Depois, inicie a aplicação com o perfil "particionado" (ddl-auto=none), para o
+-- Hibernate não tentar recriar a chave estrangeira playlist_itens -> musicas:
+--   java -jar screensound.jar --spring.profiles.active=particionado
+--
+-- O que muda no banco:
+-- - A chave primária passa a ser (id, artista_id): no PostgreSQL, a chave primária de uma
+--   tabela particionada precisa conter a coluna da partição. O id continua único
+--   (vem de uma única sequência) e o mapeamento JPA de Musica não muda.
+-- - artista_id passa a ser obrigatório (NOT NULL)
+-- - Chaves estrangeiras que APONTAM para musicas (ex: playlist_itens.musica_id) são removidas:
+--   elas exigiriam uma restrição UNIQUE só no id, que uma tabela particionada não permite.
+--   Sem essa chave, o banco não impede itens de playlist apontando para músicas removidas:
+--   os itens precisam ser removidos antes das músicas.
+--
+-- Tudo roda em uma transação: se algo falhar, o banco fica como estava.
+-- =====================================================================
+
+BEGIN;
+
+LOCK TABLE musicas IN ACCESS EXCLUSIVE MODE;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'musicas'::regclass) THEN
+        RAISE EXCEPTION 'A tabela musicas já é particionada';
+    END IF;
+    IF EXISTS (SELECT 1 FROM musicas WHERE artista_id IS NULL) THEN
+        RAISE EXCEPTION 'Existem músicas sem artista: defina o artista ou remova-as antes de migrar';
+    END IF;
+END $$;
+
+-- 1. A tabela atual sai do caminho (índices renomeados para liberar os nomes)
+ALTER TABLE musicas RENAME TO musicas_antiga;
+ALTER INDEX musicas_pkey RENAME TO musicas_antiga_pkey;
+ALTER INDEX IF EXISTS musicas_album RENAME TO musicas_antiga_album;
+ALTER INDEX IF EXISTS musicas_artista RENAME TO musicas_antiga_artista;
+
+-- 2. Remove as chaves estrangeiras que apontam para a tabela antiga
+DO $$
+DECLARE
+    restricao record;
+BEGIN
+    FOR restricao IN
+        SELECT conrelid::regclass AS tabela, conname AS nome
+        FROM pg_constraint
+        WHERE contype = 'f' AND confrelid = 'musicas_antiga'::regclass
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', restricao.tabela, restricao.nome);
+    END LOOP;
+END $$;
+
+-- 3. Sequência própria, continuando do maior id atual
+--    (colunas IDENTITY não são aceitas em tabelas particionadas antes do PostgreSQL 17)
+CREATE SEQUENCE musicas_id_particionada_seq;
+SELECT setval('musicas_id_particionada_seq', COALESCE((SELECT MAX(id) FROM musicas_antiga), 0) + 1, false);
+
+-- 4. Tabela particionada
+CREATE TABLE musicas (
+    id bigint NOT NULL DEFAULT nextval('musicas_id_particionada_seq'),
+    titulo varchar(255),
+    artista_id bigint NOT NULL REFERENCES artistas (id),
+    album_id bigint REFERENCES albuns (id),
+    PRIMARY KEY (id, artista_id)
+) PARTITION BY HASH (artista_id);
+
+ALTER SEQUENCE musicas_id_particionada_seq OWNED BY musicas.id;
+
+-- 5. 16 partições: musicas_p00 ... musicas_p15
+DO $$
+BEGIN
+    FOR resto IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF musicas FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+                       'musicas_p' || lpad(resto::text, 2, '0'), resto);
+    END LOOP;
+END $$;
+
+-- 6. Índices (criados na tabela "mãe", o PostgreSQL cria um em cada partição)
+CREATE INDEX musicas_artista ON musicas (artista_id);
+CREATE INDEX musicas_album ON musicas (album_id);
+
+-- 7. Copia os dados e apaga a tabela antiga
+INSERT INTO musicas (id, titulo, artista_id, album_id)
+SELECT id, titulo, artista_id, album_id FROM musicas_antiga;
+
+DROP TABLE musicas_antiga;
+
+COMMIT;
+
+-- Estatísticas das partições novas (usadas pelo planejador e pela contagem estimada da navegação)
+ANALYZE musicas;
@@ -0,0 +1,104 @@
+package br.com.alura.screensound.principal;
+
+import br.com.alura.screensound.model.Artista;
+import br.com.alura.screensound.model.TipoArtista;
+import br.com.alura.screensound.repository.ArtistaRepository;
+import br.com.alura.screensound.service.CadastroService;
+import br.com.alura.screensound.service.DiscografiaService;
+import br.com.alura.screensound.service.ExclusaoCatalogoService;
+import br.com.alura.screensound.service.ExportadorCatalogo;
+import br.com.alura.screensound.service.NavegacaoCatalogoService;
+import br.com.alura.screensound.service.PlaylistService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ModoLoteTest {
+
+    private final ByteArrayOutputStream saida = new ByteArrayOutputStream();
+    private PrintStream saidaOriginal;
+
+    private final ArtistaRepository artistaRepository = mock(ArtistaRepository.class);
+    private final CadastroService cadastro = mock(CadastroService.class);
+
+    @BeforeEach
+    void capturarSaida() {
+        saidaOriginal = System.out;
+        System.setOut(new PrintStream(saida, true, StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void restaurarSaida() {
+        System.setOut(saidaOriginal);
+    }
+
+    @Test
+    void separaArgumentosEntreAspas() {
+        assertThat(ModoLote.separarArgumentos("add-songs \"Pink Floyd\" Time  \"\""))
+                .containsExactly("add-songs", "Pink Floyd", "Time", "");
+    }
+
+    @Test
+    void erroDoBancoNoArquivoInformaALinhaESegue(@TempDir Path pasta) throws IOException {
+        when(artistaRepository.findByNomeIgnoreCase("Queen"))
+                .thenReturn(Optional.of(new Artista("Queen", TipoArtista.BANDA)));
+        when(cadastro.alterarTipo(any(), any())).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new SQLException("violação de restrição: tipo_valido")));
+        Path comandos = pasta.resolve("comandos.txt");
+        Files.writeString(comandos, """
+                # tipo do Queen
+                set-type "Queen" solo
+
+                nada
+                """);
+
+        novoModoLote().executar(List.of("file", comandos.toString()));
+
+        String texto = saida.toString(StandardCharsets.UTF_8);
+        assertThat(texto).contains("ERRO (" + comandos + ":2 set-type): violação de restrição: tipo_valido");
+        assertThat(texto).contains("Comando desconhecido: nada");
+    }
+
+    @Test
+    void resolveSoOsServicosDoComandoExecutado() {
+        when(artistaRepository.findByNomeIgnoreCase("Queen"))
+                .thenReturn(Optional.of(new Artista("Queen", TipoArtista.BANDA)));
+
+        novoModoLote().executar(List.of("add-songs", "Queen", "Bohemian Rhapsody"));
+
+        // Os outros providers vêm de uma fábrica vazia: se algum fosse resolvido, o comando falharia
+        assertThat(saida.toString(StandardCharsets.UTF_8)).contains("1 músicas cadastradas para Queen.");
+        verify(cadastro).adicionarMusicas(any(), eq(List.of("Bohemian Rhapsody")));
+    }
+
+    private ModoLote novoModoLote() {
+        DefaultListableBeanFactory vazia = new DefaultListableBeanFactory();
+        DefaultListableBeanFactory comCadastro = new DefaultListableBeanFactory();
+        comCadastro.registerSingleton("cadastroService", cadastro);
+        return new ModoLote(artistaRepository, null, null, vazia.getBeanProvider(ExportadorCatalogo.class),
+                comCadastro.getBeanProvider(CadastroService.class), null, null, null,
+                vazia.getBeanProvider(PlaylistService.class), vazia.getBeanProvider(DiscografiaService.class),
+                vazia.getBeanProvider(NavegacaoCatalogoService.class),
+                vazia.getBeanProvider(ExclusaoCatalogoService.class));
+    }
+}
@@ -0,0 +1,49 @@
+package br.com.alura.screensound.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BufferReproducoesTest {
+
+    @Test
+    void registroAposFecharFalhaNaHora() throws InterruptedException {
+        BufferReproducoes buffer = new BufferReproducoes(4);
+        buffer.registrar(1, 10);
+        buffer.fechar();
+
+        assertThatThrownBy(() -> buffer.registrar(2, 20)).isInstanceOf(IllegalStateException.class);
+
+        // O que já estava no buffer continua disponível para a última drenagem
+        long[] musicas = new long[4];
+        long[] instantes = new long[4];
+        assertThat(buffer.drenar(musicas, instantes, 0)).isEqualTo(1);
+        assertThat(musicas[0]).isEqualTo(1);
+    }
+
+    @Test
+    void fecharLiberaQuemEsperavaEspaco() throws Exception {
+        BufferReproducoes buffer = new BufferReproducoes(1);
+        buffer.registrar(1, 10);
+        CompletableFuture<Void> esperando = CompletableFuture.runAsync(() -> {
+            try {
+                buffer.registrar(2, 20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(100);
+        assertThat(esperando).isNotDone();
+
+        buffer.fechar();
+
+        assertThatThrownBy(() -> esperando.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+}
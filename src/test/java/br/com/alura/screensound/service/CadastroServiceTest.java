@@ -0,0 +1,167 @@
+package br.com.alura.screensound.service;
+
+import br.com.alura.screensound.ScreensoundApplication;
+import br.com.alura.screensound.model.Artista;
+import br.com.alura.screensound.model.TipoArtista;
+import br.com.alura.screensound.repository.ArtistaRepository;
+import br.com.alura.screensound.repository.MusicaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Cadastros simultâneos de verdade (várias threads, cada uma com suas transações) no H2.
+ *
+ * Sem a transação do teste (NOT_SUPPORTED): cada operação faz commit, como na aplicação.
+ */
+@DataJpaTest
+@ActiveProfiles("teste")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(CadastroService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CadastroServiceTest {
+
+    private static final int THREADS = 8;
+    private static final int LOTES_POR_THREAD = 20;
+    private static final int MUSICAS_POR_LOTE = 5;
+
+    // Só as entidades e repositórios: a ScreensoundApplication (menu, modo lote) fica de fora
+    @Configuration
+    @AutoConfigurationPackage(basePackageClasses = ScreensoundApplication.class)
+    static class Configuracao {
+    }
+
+    @Autowired
+    private CadastroService cadastro;
+
+    @Autowired
+    private ArtistaRepository artistaRepository;
+
+    @Autowired
+    private MusicaRepository musicaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void limpar() {
+        musicaRepository.deleteAllInBatch();
+        artistaRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void musicasSimultaneasDoMesmoArtistaNaoSePerdem() throws Exception {
+        Long artistaId = artistaRepository.save(new Artista("Madonna", TipoArtista.SOLO)).getId();
+
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Callable<Void>> tarefas = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tarefas.add(() -> {
+                largada.await();
+                for (int lote = 0; lote < LOTES_POR_THREAD; lote++) {
+                    List<String> titulos = new ArrayList<>();
+                    for (int i = 0; i < MUSICAS_POR_LOTE; i++) {
+                        titulos.add("Música " + thread + "-" + lote + "-" + i);
+                    }
+                    cadastro.adicionarMusicas(artistaId, titulos);
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> resultados = new ArrayList<>();
+            for (Callable<Void> tarefa : tarefas) {
+                resultados.add(executor.submit(tarefa));
+            }
+            largada.countDown();
+            for (Future<Void> resultado : resultados) {
+                resultado.get();  // repassa qualquer falha de uma das threads
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(musicaRepository.count()).isEqualTo((long) THREADS * LOTES_POR_THREAD * MUSICAS_POR_LOTE);
+        // As músicas não regravam o artista: a versão continua a mesma
+        assertThat(artistaRepository.findById(artistaId).orElseThrow().getVersao()).isZero();
+    }
+
+    @Test
+    void alteracaoConcorrenteDoArtistaEhRepetida() {
+        Long artistaId = artistaRepository.save(new Artista("Beatles", TipoArtista.SOLO)).getId();
+        AtomicInteger leituras = new AtomicInteger();
+        CadastroService comConflito = servicoComConflito(leituras, 1);
+
+        Artista alterado = comConflito.alterarTipo(artistaId, TipoArtista.DUPLA);
+
+        assertThat(leituras).hasValue(2);  // a primeira tentativa perdeu para a outra alteração
+        assertThat(alterado.getTipo()).isEqualTo(TipoArtista.DUPLA);
+        // Versão 1 = alteração concorrente, versão 2 = a nova tentativa, feita sobre os dados novos
+        assertThat(artistaRepository.findById(artistaId).orElseThrow().getVersao()).isEqualTo(2);
+    }
+
+    @Test
+    void conflitoEmTodasAsTentativasRelancaAExcecao() {
+        Long artistaId = artistaRepository.save(new Artista("Sandy & Junior", TipoArtista.SOLO)).getId();
+        AtomicInteger leituras = new AtomicInteger();
+        CadastroService comConflito = servicoComConflito(leituras, Integer.MAX_VALUE);
+
+        assertThatThrownBy(() -> comConflito.alterarTipo(artistaId, TipoArtista.DUPLA))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(leituras).hasValue(CadastroService.TENTATIVAS);
+        // Só as alterações concorrentes foram gravadas
+        Artista gravado = artistaRepository.findById(artistaId).orElseThrow();
+        assertThat(gravado.getTipo()).isNotEqualTo(TipoArtista.DUPLA);
+        assertThat(gravado.getVersao()).isEqualTo(CadastroService.TENTATIVAS);
+    }
+
+    /**
+     * CadastroService cujas primeiras "conflitos" leituras do artista são seguidas, antes do commit,
+     * de um alterarTipo() concorrente em outra thread (que grava primeiro e muda a versão).
+     * A alteração concorrente alterna entre BANDA e SOLO: cada uma muda o tipo e gera um UPDATE.
+     */
+    private CadastroService servicoComConflito(AtomicInteger leituras, int conflitos) {
+        ArtistaRepository repositorio = mock(ArtistaRepository.class, delegatesTo(artistaRepository));
+        doAnswer(chamada -> {
+            Object lido = artistaRepository.findById(chamada.getArgument(0));
+            int leitura = leituras.incrementAndGet();
+            if (leitura <= conflitos) {
+                TipoArtista outro = leitura % 2 == 1 ? TipoArtista.BANDA : TipoArtista.SOLO;
+                Thread concorrente = new Thread(() -> cadastro.alterarTipo(chamada.getArgument(0), outro));
+                concorrente.start();
+                concorrente.join();
+            }
+            return lido;
+        }).when(repositorio).findById(any());
+        return new CadastroService(repositorio, musicaRepository, transactionManager);
+    }
+}
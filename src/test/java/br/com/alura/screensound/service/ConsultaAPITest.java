@@ -0,0 +1,176 @@
+package br.com.alura.screensound.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ConsultaAPI contra um servidor HTTP local que simula as falhas da API (erro 5xx, cota, lentidão).
+ */
+class ConsultaAPITest {
+
+    private static final String RESPOSTA = "{\"artists\":[{\"strArtist\":\"Queen\",\"strGenre\":\"Rock\"}]}";
+
+    private HttpServer servidor;
+    private final AtomicInteger chamadas = new AtomicInteger();
+    private final CountDownLatch liberarResposta = new CountDownLatch(1);
+    private final CountDownLatch chamadaRecebida = new CountDownLatch(1);
+    private volatile int status = 200;
+    private volatile boolean segurarResposta;
+
+    private final Disjuntor disjuntor = new Disjuntor(3, Duration.ofMinutes(1), Clock.systemUTC());
+    private ConsultaAPI consulta;
+
+    @BeforeEach
+    void iniciar() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        servidor.setExecutor(Executors.newCachedThreadPool());
+        servidor.createContext("/search.php", this::responder);
+        servidor.start();
+        consulta = new ConsultaAPI("http://127.0.0.1:" + servidor.getAddress().getPort(), disjuntor,
+                new LimitadorTaxa(100, Duration.ofMinutes(1)));
+    }
+
+    @AfterEach
+    void parar() {
+        liberarResposta.countDown();
+        servidor.stop(0);
+    }
+
+    private void responder(HttpExchange troca) throws IOException {
+        chamadas.incrementAndGet();
+        chamadaRecebida.countDown();
+        if (segurarResposta) {
+            try {
+                liberarResposta.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] corpo = RESPOSTA.getBytes(StandardCharsets.UTF_8);
+        troca.sendResponseHeaders(status, corpo.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(corpo);
+        }
+    }
+
+    @Test
+    void respostaNormalFechaODisjuntor() {
+        assertThat(consulta.buscarJson("Queen")).isEqualTo(RESPOSTA);
+        assertThat(disjuntor.estado()).isEqualTo(Disjuntor.Estado.FECHADO);
+    }
+
+    @Test
+    void errosDoServidorAbremODisjuntorESuspendemAsChamadas() {
+        status = 503;
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> consulta.buscarJson("Queen")).isInstanceOf(IllegalStateException.class);
+        }
+
+        assertThat(disjuntor.estado()).isEqualTo(Disjuntor.Estado.ABERTO);
+        assertThatThrownBy(() -> consulta.buscarJson("Queen"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("muitas falhas seguidas");
+        // A quarta consulta falhou na hora, sem chegar ao servidor
+        assertThat(chamadas).hasValue(3);
+    }
+
+    @Test
+    void cotaEstouradaDaApiContaComoFalha() {
+        status = 429;
+        assertThatThrownBy(() -> consulta.buscarJson("Queen")).isInstanceOf(IllegalStateException.class);
+        status = 200;
+        assertThat(consulta.buscarJson("Queen")).isEqualTo(RESPOSTA);
+
+        status = 429;
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> consulta.buscarJson("Queen")).isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(disjuntor.estado()).isEqualTo(Disjuntor.Estado.ABERTO);
+    }
+
+    @Test
+    void servidorForaDoArContaComoFalha() {
+        servidor.stop(0);
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> consulta.buscarJson("Queen")).isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(disjuntor.estado()).isEqualTo(Disjuntor.Estado.ABERTO);
+    }
+
+    @Test
+    void enderecoInvalidoNaoContaComoFalha() {
+        ConsultaAPI malConfigurada = new ConsultaAPI("http://endereco invalido", disjuntor,
+                new LimitadorTaxa(100, Duration.ofMinutes(1)));
+
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> malConfigurada.buscarJson("Queen"))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("inválido");
+        }
+        assertThat(disjuntor.estado()).isEqualTo(Disjuntor.Estado.FECHADO);
+    }
+
+    @Test
+    void consultasSimultaneasDoMesmoArtistaCompartilhamAChamada() throws Exception {
+        segurarResposta = true;
+        List<Future<String>> resultados = consultarEmParalelo(6, "Queen");
+
+        assertThat(chamadaRecebida.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(200);
+        liberarResposta.countDown();
+
+        for (Future<String> resultado : resultados) {
+            assertThat(resultado.get(5, TimeUnit.SECONDS)).isEqualTo(RESPOSTA);
+        }
+        assertThat(chamadas).hasValue(1);
+    }
+
+    @Test
+    void falhaDaChamadaCompartilhadaChegaATodosQueEsperam() throws Exception {
+        segurarResposta = true;
+        status = 500;
+        List<Future<String>> resultados = consultarEmParalelo(6, " queen ");
+
+        assertThat(chamadaRecebida.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(200);
+        liberarResposta.countDown();
+
+        for (Future<String> resultado : resultados) {
+            assertThatThrownBy(() -> resultado.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+        }
+        assertThat(chamadas).hasValue(1);
+    }
+
+    private List<Future<String>> consultarEmParalelo(int threads, String nome) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<String>> resultados = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            resultados.add(executor.submit(() -> consulta.buscarJson(nome)));
+        }
+        executor.shutdown();
+        return resultados;
+    }
+}
@@ -0,0 +1,121 @@
+package br.com.alura.screensound.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Transições do disjuntor com um relógio controlado pelo teste (sem esperas de verdade).
+ */
+class DisjuntorTest {
+
+    private static final Duration TEMPO_ABERTO = Duration.ofSeconds(30);
+
+    private final RelogioManual relogio = new RelogioManual();
+    private final Disjuntor disjuntor = new Disjuntor(3, TEMPO_ABERTO, relogio);
+
+    @Test
+    void abreSomenteAposFalhasSeguidas() {
+        falhar(2);
+        disjuntor.registrarSucesso();
+        falhar(2);
+
+        assertThat(disjuntor.estado()).isEqualTo(Disjuntor.Estado.FECHADO);
+        assertThat(disjuntor.permitir()).isTrue();
+
+        disjuntor.registrarFalha();
+
+        assertThat(disjuntor.estado()).isEqualTo(Disjuntor.Estado.ABERTO);
+        assertThat(disjuntor.permitir()).isFalse();
+    }
+
+    @Test
+    void liberaUmaUnicaChamadaDeTesteAposOTempoAberto() {
+        falhar(3);
+        relogio.avancar(TEMPO_ABERTO.minusMillis(1));
+        assertThat(disjuntor.permitir()).isFalse();
+
+        relogio.avancar(Duration.ofMillis(1));
+
+        assertThat(disjuntor.permitir()).isTrue();
+        assertThat(disjuntor.estado()).isEqualTo(Disjuntor.Estado.SEMI_ABERTO);
+        assertThat(disjuntor.permitir()).isFalse();
+    }
+
+    @Test
+    void sucessoNoTesteFechaODisjuntor() {
+        falhar(3);
+        relogio.avancar(TEMPO_ABERTO);
+        assertThat(disjuntor.permitir()).isTrue();
+
+        disjuntor.registrarSucesso();
+
+        assertThat(disjuntor.estado()).isEqualTo(Disjuntor.Estado.FECHADO);
+        assertThat(disjuntor.permitir()).isTrue();
+        assertThat(disjuntor.permitir()).isTrue();
+    }
+
+    @Test
+    void falhaNoTesteReabrePorMaisUmTempoAberto() {
+        falhar(3);
+        relogio.avancar(TEMPO_ABERTO);
+        assertThat(disjuntor.permitir()).isTrue();
+
+        disjuntor.registrarFalha();
+
+        assertThat(disjuntor.estado()).isEqualTo(Disjuntor.Estado.ABERTO);
+        relogio.avancar(TEMPO_ABERTO.minusMillis(1));
+        assertThat(disjuntor.permitir()).isFalse();
+        relogio.avancar(Duration.ofMillis(1));
+        assertThat(disjuntor.permitir()).isTrue();
+    }
+
+    @Test
+    void desistenciaDoTesteLiberaOutraChamada() {
+        falhar(3);
+        relogio.avancar(TEMPO_ABERTO);
+        assertThat(disjuntor.permitir()).isTrue();
+
+        disjuntor.desistir();
+
+        assertThat(disjuntor.estado()).isEqualTo(Disjuntor.Estado.SEMI_ABERTO);
+        assertThat(disjuntor.permitir()).isTrue();
+    }
+
+    private void falhar(int vezes) {
+        for (int i = 0; i < vezes; i++) {
+            assertThat(disjuntor.permitir()).isTrue();
+            disjuntor.registrarFalha();
+        }
+    }
+
+    private static final class RelogioManual extends Clock {
+
+        private Instant agora = Instant.parse("2024-01-01T00:00:00Z");
+
+        void avancar(Duration tempo) {
+            agora = agora.plus(tempo);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return agora;
+        }
+    }
+}
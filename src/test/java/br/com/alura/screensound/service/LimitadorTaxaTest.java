@@ -0,0 +1,55 @@
+package br.com.alura.screensound.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LimitadorTaxaTest {
+
+    @Test
+    void permiteRajadaAteACapacidade() throws InterruptedException {
+        LimitadorTaxa limitador = new LimitadorTaxa(5, Duration.ofHours(1));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limitador.adquirir(Duration.ZERO)).isTrue();
+        }
+        assertThat(limitador.adquirir(Duration.ZERO)).isFalse();
+    }
+
+    @Test
+    void desisteSeAFichaNaoChegaATempo() throws InterruptedException {
+        LimitadorTaxa limitador = new LimitadorTaxa(1, Duration.ofHours(1));
+        assertThat(limitador.adquirir(Duration.ZERO)).isTrue();
+
+        long inicio = System.nanoTime();
+        assertThat(limitador.adquirir(Duration.ofSeconds(1))).isFalse();
+
+        // Desiste na hora, sem dormir a espera máxima
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofMillis(500));
+    }
+
+    @Test
+    void esperaAReposicaoQuandoElaCabeNaEsperaMaxima() throws InterruptedException {
+        // Uma ficha a cada 100 ms
+        LimitadorTaxa limitador = new LimitadorTaxa(2, Duration.ofMillis(200));
+        assertThat(limitador.adquirir(Duration.ZERO)).isTrue();
+        assertThat(limitador.adquirir(Duration.ZERO)).isTrue();
+
+        long inicio = System.nanoTime();
+        assertThat(limitador.adquirir(Duration.ofSeconds(1))).isTrue();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+    }
+
+    @Test
+    void fichaReservadaNaoEhEntregueDuasVezes() throws InterruptedException {
+        LimitadorTaxa limitador = new LimitadorTaxa(1, Duration.ofMillis(200));
+        assertThat(limitador.adquirir(Duration.ZERO)).isTrue();
+
+        // A próxima ficha fica reservada para quem esperou; a seguinte só chega 200 ms depois
+        assertThat(limitador.adquirir(Duration.ofSeconds(1))).isTrue();
+        assertThat(limitador.adquirir(Duration.ofMillis(50))).isFalse();
+    }
+}